@@ -0,0 +1,125 @@
+package base;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Playwright;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A Playwright connection and launched browser owned by a single worker thread.
+ * Workers live for the whole run; only contexts and pages are created per scenario.
+ */
+final class BrowserWorker {
+    private static final Logger logger = LogManager.getLogger(BrowserWorker.class);
+
+    private final Playwright playwright;
+    private final Browser browser;
+    private final ScenarioTracing tracing;
+    private final VideoRecorder videoRecorder;
+    private final boolean webVitals;
+    private volatile Thread owner;
+
+    private BrowserWorker(Playwright playwright, Browser browser, ConfigReader config, Thread owner) {
+        this.playwright = playwright;
+        this.browser = browser;
+        this.tracing = new ScenarioTracing(config.getTraceMode());
+        this.videoRecorder = new VideoRecorder(config);
+        this.webVitals = config.isWebVitalsEnabled();
+        this.owner = owner;
+    }
+
+    static BrowserWorker launch(ConfigReader config) {
+        String browserName = config.getBrowserName();
+        Thread owner = Thread.currentThread();
+        logger.info("Launching {} browser for worker thread {}", browserName, owner.getName());
+
+        Playwright playwright = Playwright.create();
+        if (config.isProtocolStatsEnabled()) {
+            ProtocolStats.install(playwright);
+        }
+        try {
+            playwright.selectors().setTestIdAttribute("data-test");
+            Browser browser = launchBrowser(playwright, browserName, config);
+            return new BrowserWorker(playwright, browser, config, owner);
+        } catch (RuntimeException e) {
+            playwright.close();
+            throw e;
+        }
+    }
+
+    private static Browser launchBrowser(Playwright playwright, String browserName, ConfigReader config) {
+        BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
+                .setHeadless(config.isHeadless())
+                .setSlowMo(config.getSlowMo());
+        if ("firefox".equalsIgnoreCase(browserName)) {
+            return playwright.firefox().launch(launchOptions);
+        }
+        if ("webkit".equalsIgnoreCase(browserName)) {
+            return playwright.webkit().launch(launchOptions);
+        }
+        return playwright.chromium().launch(launchOptions);
+    }
+
+    Playwright getPlaywright() {
+        return playwright;
+    }
+
+    Browser getBrowser() {
+        return browser;
+    }
+
+    ScenarioTracing getTracing() {
+        return tracing;
+    }
+
+    VideoRecorder getVideoRecorder() {
+        return videoRecorder;
+    }
+
+    /**
+     * Creates a context with the run's recording settings applied; every context of this worker is created here.
+     */
+    BrowserContext newContext(Browser.NewContextOptions options) {
+        BrowserContext context = browser.newContext(videoRecorder.apply(options));
+        tracing.start(context);
+        if (webVitals) {
+            WebVitals.install(context);
+        }
+        return context;
+    }
+
+    /**
+     * True once the thread that owned this worker has terminated, e.g. when a parallel run ended and a
+     * retry run starts on new threads. Such a worker can be handed over with {@link #adopt()}.
+     */
+    boolean isOrphaned() {
+        return !owner.isAlive();
+    }
+
+    void adopt() {
+        logger.info("Worker thread {} takes over the browser of finished thread {}",
+                Thread.currentThread().getName(), owner.getName());
+        owner = Thread.currentThread();
+    }
+
+    boolean isUsable() {
+        return browser.isConnected();
+    }
+
+    void close() {
+        logger.info("Closing browser of worker thread {}", owner.getName());
+        try {
+            browser.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close browser of worker thread {}: {}", owner.getName(), e.getMessage());
+        }
+        try {
+            playwright.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close Playwright of worker thread {}: {}", owner.getName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package base;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.options.Sizes;
+import com.microsoft.playwright.options.Timing;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the latency and size of every finished request of a page, aggregated per normalized
+ * endpoint for the scenario and for the whole run.
+ * <p>
+ * Endpoints are the request path, relative to {@code api.baseUrl} for API calls, with every path
+ * segment that contains a digit (ids, generated file names) replaced by {@code *} and any query
+ * string collapsed to {@code ?*}: {@code GET /products?*}, {@code POST /messages},
+ * {@code GET /img/products/*}. Latency is Playwright's {@code responseEnd}, measured from the start
+ * of the request. Request and response sizes need an extra round trip per request and are only
+ * collected with {@code network.timings.sizes=true}.
+ * <p>
+ * The run totals are written to {@code endpoint-timings.json} in the report directory at shutdown.
+ */
+public final class EndpointTimings {
+    private static final Logger logger = LogManager.getLogger(EndpointTimings.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final Map<String, Stats> runStats = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(EndpointTimings::writeRunSummary, "endpoint-timings"));
+    }
+
+    private final Map<String, Stats> scenarioStats = new TreeMap<>();
+    private final String apiBaseUrl;
+    private final boolean collectSizes;
+
+    private EndpointTimings(ConfigReader config) {
+        this.apiBaseUrl = config.getApiBaseUrl();
+        this.collectSizes = config.isNetworkTimingSizes();
+    }
+
+    static EndpointTimings attach(Page page, ConfigReader config) {
+        EndpointTimings timings = new EndpointTimings(config);
+        page.onRequestFinished(timings::record);
+        return timings;
+    }
+
+    private void record(Request request) {
+        if (!request.url().startsWith("http")) {
+            return;
+        }
+        Timing timing = request.timing();
+        if (timing == null || timing.responseEnd < 0) {
+            return;
+        }
+        long bytes = 0;
+        if (collectSizes) {
+            try {
+                Sizes sizes = request.sizes();
+                bytes = sizes.responseBodySize + sizes.responseHeadersSize;
+            } catch (RuntimeException e) {
+                logger.debug("No sizes for {}: {}", request.url(), e.getMessage());
+            }
+        }
+        String endpoint = request.method() + " " + normalize(request.url());
+        long millis = Math.round(timing.responseEnd);
+        scenarioStats.computeIfAbsent(endpoint, ignored -> new Stats()).add(millis, bytes);
+        runStats.computeIfAbsent(endpoint, ignored -> new Stats()).add(millis, bytes);
+    }
+
+    String normalize(String url) {
+        String path;
+        String query;
+        if (url.startsWith(apiBaseUrl)) {
+            URI relative = URI.create(url.substring(apiBaseUrl.length()));
+            path = relative.getPath();
+            query = relative.getQuery();
+        } else {
+            URI uri = URI.create(url);
+            path = uri.getPath();
+            query = uri.getQuery();
+        }
+        StringBuilder endpoint = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                endpoint.append('/').append(segment.matches(".*\\d.*") ? "*" : segment);
+            }
+        }
+        if (endpoint.length() == 0) {
+            endpoint.append('/');
+        }
+        if (query != null && !query.isEmpty()) {
+            endpoint.append("?*");
+        }
+        return endpoint.toString();
+    }
+
+    /**
+     * 95th percentile latency of the scenario's requests to {@code path}, with or without a query
+     * string and whatever the method, or {@code null} when there were none.
+     */
+    public Long p95Millis(String path) {
+        Stats matching = new Stats();
+        scenarioStats.forEach((endpoint, stats) -> {
+            String endpointPath = endpoint.substring(endpoint.indexOf(' ') + 1);
+            if (endpointPath.equals(path) || endpointPath.equals(path + "?*")) {
+                matching.addAll(stats);
+            }
+        });
+        return matching.count() == 0 ? null : matching.percentile(95);
+    }
+
+    /**
+     * The scenario's endpoints as table rows: endpoint, count, p50, p95, max and bytes.
+     */
+    public String[][] toTable() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Endpoint", "Requests", "p50 ms", "p95 ms", "max ms", "Bytes"});
+        scenarioStats.forEach((endpoint, stats) -> rows.add(new String[]{endpoint, String.valueOf(stats.count()),
+                String.valueOf(stats.percentile(50)), String.valueOf(stats.percentile(95)),
+                String.valueOf(stats.percentile(100)), collectSizes ? String.valueOf(stats.bytes) : "-"}));
+        return rows.toArray(new String[0][]);
+    }
+
+    public boolean isEmpty() {
+        return scenarioStats.isEmpty();
+    }
+
+    private static void writeRunSummary() {
+        if (runStats.isEmpty()) {
+            return;
+        }
+        JsonArray endpoints = new JsonArray();
+        new TreeMap<>(runStats).forEach((endpoint, stats) -> {
+            JsonObject row = new JsonObject();
+            row.addProperty("endpoint", endpoint);
+            row.addProperty("count", stats.count());
+            row.addProperty("p50Ms", stats.percentile(50));
+            row.addProperty("p95Ms", stats.percentile(95));
+            row.addProperty("p99Ms", stats.percentile(99));
+            row.addProperty("maxMs", stats.percentile(100));
+            row.addProperty("bytes", stats.bytes);
+            endpoints.add(row);
+            logger.info("{}: {} requests, p50 {} ms, p95 {} ms, max {} ms", endpoint, stats.count(),
+                    stats.percentile(50), stats.percentile(95), stats.percentile(100));
+        });
+        JsonObject root = new JsonObject();
+        root.add("endpoints", endpoints);
+        Path file = Paths.get(new ConfigReader().getReportDir(), "endpoint-timings.json");
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                gson.toJson(root, writer);
+            }
+            logger.info("Endpoint timings written to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to write endpoint timings to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static final class Stats {
+        private long[] millis = new long[8];
+        private int size;
+        private long bytes;
+
+        private synchronized void add(long latency, long size) {
+            if (this.size == millis.length) {
+                millis = Arrays.copyOf(millis, this.size * 2);
+            }
+            millis[this.size++] = latency;
+            bytes += size;
+        }
+
+        private synchronized void addAll(Stats other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.millis[i], 0);
+            }
+            bytes += other.bytes;
+        }
+
+        private synchronized int count() {
+            return size;
+        }
+
+        private synchronized long percentile(int percentile) {
+            long[] sorted = Arrays.copyOf(millis, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+}
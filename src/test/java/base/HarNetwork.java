@@ -0,0 +1,145 @@
+package base;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.options.HarNotFound;
+import com.microsoft.playwright.options.RouteFromHarUpdateContentPolicy;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wires {@code network.mode=record|replay|live} into browser contexts.
+ * <p>
+ * In record mode every scenario records into its own temporary HAR, which is merged into
+ * {@code <network.har.dir>/<feature>.har} when the scenario's context closes, giving one HAR per
+ * feature. In replay mode the context is served from that HAR through {@code routeFromHAR}; with
+ * {@code network.replay.strict=true} any request missing from the HAR is aborted instead of going
+ * to the network.
+ */
+final class HarNetwork {
+    private static final Logger logger = LogManager.getLogger(HarNetwork.class);
+    private static final Path RECORDING_DIR = Paths.get("target", "har-recordings");
+    private static final Set<String> featuresRecordedThisRun = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Object> featureLocks = new ConcurrentHashMap<>();
+
+    private HarNetwork() {
+    }
+
+    /**
+     * Applies the configured network mode to the context and returns the temporary HAR the
+     * scenario records into, or {@code null} when nothing is recorded.
+     */
+    static Path attach(BrowserContext context, String featureName, ConfigReader config) {
+        String mode = config.getNetworkMode();
+        if ("record".equalsIgnoreCase(mode)) {
+            return startRecording(context, featureName);
+        }
+        if ("replay".equalsIgnoreCase(mode)) {
+            startReplay(context, featureName, config);
+        }
+        return null;
+    }
+
+    private static Path startRecording(BrowserContext context, String featureName) {
+        try {
+            Files.createDirectories(RECORDING_DIR);
+            Path recording = Files.createTempFile(RECORDING_DIR, featureName + "-", ".har");
+            context.routeFromHAR(recording, new BrowserContext.RouteFromHAROptions()
+                    .setUpdate(true)
+                    .setUpdateContent(RouteFromHarUpdateContentPolicy.EMBED));
+            logger.debug("Recording network traffic of feature '{}' to {}", featureName, recording);
+            return recording;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create HAR recording in " + RECORDING_DIR, e);
+        }
+    }
+
+    private static void startReplay(BrowserContext context, String featureName, ConfigReader config) {
+        Path har = featureHar(featureName, config);
+        boolean strict = config.isNetworkReplayStrict();
+        if (!Files.exists(har)) {
+            if (strict) {
+                throw new IllegalStateException("No HAR recorded for feature '" + featureName + "' at " + har
+                        + ". Run once with network.mode=record first.");
+            }
+            logger.warn("No HAR recorded for feature '{}' at {}, falling back to live network", featureName, har);
+            return;
+        }
+        context.routeFromHAR(har, new BrowserContext.RouteFromHAROptions()
+                .setNotFound(strict ? HarNotFound.ABORT : HarNotFound.FALLBACK));
+        logger.debug("Replaying network traffic of feature '{}' from {}", featureName, har);
+    }
+
+    /**
+     * Merges a scenario recording into its feature HAR. Must be called after the recording context closed,
+     * which is when Playwright writes the HAR file.
+     */
+    static void completeRecording(Path recording, String featureName, ConfigReader config) {
+        Path har = featureHar(featureName, config);
+        synchronized (featureLocks.computeIfAbsent(featureName, ignored -> new Object())) {
+            try {
+                if (!Files.exists(recording) || Files.size(recording) == 0) {
+                    logger.warn("Scenario of feature '{}' produced no HAR recording", featureName);
+                    return;
+                }
+                JsonObject recorded = read(recording);
+                if (featuresRecordedThisRun.add(featureName) || !Files.exists(har)) {
+                    write(har, recorded);
+                } else {
+                    JsonObject merged = read(har);
+                    JsonArray entries = merged.getAsJsonObject("log").getAsJsonArray("entries");
+                    for (JsonElement entry : recorded.getAsJsonObject("log").getAsJsonArray("entries")) {
+                        entries.add(entry);
+                    }
+                    write(har, merged);
+                }
+                logger.info("Network traffic of feature '{}' recorded to {}", featureName, har);
+            } catch (IOException e) {
+                logger.error("Failed to merge HAR recording {} into {}", recording, har, e);
+            } finally {
+                try {
+                    Files.deleteIfExists(recording);
+                } catch (IOException e) {
+                    logger.debug("Failed to delete HAR recording {}: {}", recording, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Path featureHar(String featureName, ConfigReader config) {
+        return Paths.get(config.getNetworkHarDir(), featureName + ".har");
+    }
+
+    private static JsonObject read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        }
+    }
+
+    private static void write(Path file, JsonObject har) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(har.toString());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,354 @@
+package base;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the Toolshop site and API, selected with {@code env=local}.
+ * <p>
+ * Serves a small single-page app from {@code src/test/resources/local} that exposes the same
+ * selectors the page objects use, plus the API endpoints they wait on ({@code /products?},
+ * {@code /related}, {@code /carts}, {@code /messages}) and placeholder {@code /img/products/}
+ * images. Products come from the {@code products.json} fixture. Every API and image response is
+ * delayed by {@code local.latencyMs} to simulate a remote backend. The server starts once per JVM
+ * on an ephemeral port.
+ */
+public final class LocalToolshopServer {
+    private static final Logger logger = LogManager.getLogger(LocalToolshopServer.class);
+    private static final String RESOURCE_ROOT = "/local/";
+    private static final int PAGE_SIZE = 9;
+    private static final Gson gson = new Gson();
+    private static LocalToolshopServer instance;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final List<JsonObject> products;
+    private final Map<String, Map<String, Integer>> carts = new ConcurrentHashMap<>();
+    private final AtomicInteger messageCount = new AtomicInteger();
+
+    private LocalToolshopServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.products = loadProducts();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-toolshop");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handleApi);
+        server.createContext("/img/products/", this::handleImage);
+        server.createContext("/", this::handleStatic);
+    }
+
+    /**
+     * Starts the server when {@code env=local} and publishes its URLs as the {@code baseUrl.local} and
+     * {@code api.baseUrl.local} system properties, which {@link ConfigReader} reads.
+     */
+    public static void startIfLocal(ConfigReader config) {
+        if (config.isLocalEnvironment()) {
+            LocalToolshopServer server = start(config.getLocalLatencyMillis());
+            System.setProperty("baseUrl.local", server.getBaseUrl());
+            System.setProperty("api.baseUrl.local", server.getApiBaseUrl());
+        }
+    }
+
+    /**
+     * Starts the server on first use and returns the running instance.
+     */
+    public static synchronized LocalToolshopServer start(long latencyMillis) {
+        if (instance == null) {
+            try {
+                LocalToolshopServer server = new LocalToolshopServer(latencyMillis);
+                server.server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "local-toolshop-shutdown"));
+                instance = server;
+                logger.info("Local Toolshop stand-in started at {} (latency: {} ms)", server.getBaseUrl(), latencyMillis);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to start local Toolshop stand-in", e);
+            }
+        }
+        return instance;
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public String getApiBaseUrl() {
+        return getBaseUrl() + "/api";
+    }
+
+    private void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleStatic(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith(".js") || path.endsWith(".css")) {
+            byte[] asset = readResource(path.substring(path.lastIndexOf('/') + 1));
+            if (asset == null) {
+                send(exchange, 404, "text/plain", "Not found".getBytes(StandardCharsets.UTF_8));
+            } else {
+                send(exchange, 200, path.endsWith(".js") ? "application/javascript" : "text/css", asset);
+            }
+            return;
+        }
+        // Every other path is a client-side route of the single-page app
+        send(exchange, 200, "text/html; charset=utf-8", readResource("index.html"));
+    }
+
+    private void handleImage(HttpExchange exchange) throws IOException {
+        delay();
+        String name = exchange.getRequestURI().getPath().substring("/img/products/".length());
+        String svg = "<svg xmlns='http://www.w3.org/2000/svg' width='240' height='160'>"
+                + "<rect width='100%' height='100%' fill='#dde3ea'/>"
+                + "<text x='50%' y='50%' text-anchor='middle' font-family='sans-serif' font-size='14'>"
+                + name.replaceAll("[^A-Za-z0-9._-]", "") + "</text></svg>";
+        send(exchange, 200, "image/svg+xml", svg.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleApi(HttpExchange exchange) throws IOException {
+        delay();
+        String method = exchange.getRequestMethod();
+        String[] segments = Arrays.stream(exchange.getRequestURI().getPath().substring("/api/".length()).split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .toArray(String[]::new);
+        try {
+            if (segments.length == 1 && "products".equals(segments[0]) && "GET".equals(method)) {
+                sendJson(exchange, 200, listProducts(query(exchange)));
+            } else if (segments.length == 2 && "products".equals(segments[0]) && "GET".equals(method)) {
+                JsonObject product = findProduct(segments[1]);
+                sendJson(exchange, product == null ? 404 : 200, product == null ? error("Product not found") : product);
+            } else if (segments.length == 3 && "products".equals(segments[0]) && "related".equals(segments[2])) {
+                sendJson(exchange, 200, relatedProducts(segments[1]));
+            } else if (segments.length == 1 && "categories".equals(segments[0])) {
+                sendJson(exchange, 200, categories());
+            } else if (segments.length == 1 && "carts".equals(segments[0]) && "POST".equals(method)) {
+                String cartId = UUID.randomUUID().toString();
+                carts.put(cartId, new ConcurrentHashMap<>());
+                JsonObject created = new JsonObject();
+                created.addProperty("id", cartId);
+                sendJson(exchange, 201, created);
+            } else if (segments.length == 2 && "carts".equals(segments[0]) && "POST".equals(method)) {
+                sendJson(exchange, 200, addToCart(segments[1], readJson(exchange)));
+            } else if (segments.length == 2 && "carts".equals(segments[0]) && "GET".equals(method)) {
+                sendJson(exchange, 200, cart(segments[1]));
+            } else if (segments.length == 1 && "messages".equals(segments[0]) && "POST".equals(method)) {
+                readJson(exchange);
+                JsonObject message = new JsonObject();
+                message.addProperty("id", messageCount.incrementAndGet());
+                message.addProperty("status", "NEW");
+                sendJson(exchange, 200, message);
+            } else {
+                sendJson(exchange, 404, error("Unknown endpoint"));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Local Toolshop stand-in failed to handle {} {}", method, exchange.getRequestURI(), e);
+            sendJson(exchange, 500, error(e.getMessage()));
+        }
+    }
+
+    private JsonObject listProducts(Map<String, String> query) {
+        List<JsonObject> selected = new ArrayList<>();
+        String categories = query.get("by_category");
+        List<String> categoryIds = categories == null || categories.isBlank()
+                ? List.of() : Arrays.asList(categories.split(","));
+        for (JsonObject product : products) {
+            if (categoryIds.isEmpty() || categoryIds.contains(product.getAsJsonObject("category").get("id").getAsString())) {
+                selected.add(product);
+            }
+        }
+
+        String sort = query.getOrDefault("sort", "");
+        Comparator<JsonObject> comparator = null;
+        if (sort.startsWith("price")) {
+            comparator = Comparator.comparingDouble(product -> product.get("price").getAsDouble());
+        } else if (sort.startsWith("name")) {
+            comparator = Comparator.comparing(product -> product.get("name").getAsString());
+        }
+        if (comparator != null) {
+            selected.sort(sort.endsWith("desc") ? comparator.reversed() : comparator);
+        }
+
+        int lastPage = Math.max(1, (selected.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        int currentPage = Math.min(lastPage, Math.max(1, Integer.parseInt(query.getOrDefault("page", "1"))));
+        int from = (currentPage - 1) * PAGE_SIZE;
+        JsonArray data = new JsonArray();
+        selected.subList(from, Math.min(selected.size(), from + PAGE_SIZE)).forEach(data::add);
+
+        JsonObject page = new JsonObject();
+        page.addProperty("current_page", currentPage);
+        page.addProperty("last_page", lastPage);
+        page.addProperty("per_page", PAGE_SIZE);
+        page.addProperty("total", selected.size());
+        page.add("data", data);
+        return page;
+    }
+
+    private JsonArray relatedProducts(String productId) {
+        JsonObject product = findProduct(productId);
+        JsonArray related = new JsonArray();
+        if (product == null) {
+            return related;
+        }
+        String categoryId = product.getAsJsonObject("category").get("id").getAsString();
+        for (JsonObject candidate : products) {
+            if (related.size() < 4 && !candidate.get("id").getAsString().equals(productId)
+                    && candidate.getAsJsonObject("category").get("id").getAsString().equals(categoryId)) {
+                related.add(candidate);
+            }
+        }
+        return related;
+    }
+
+    private JsonArray categories() {
+        Map<String, JsonObject> byId = new HashMap<>();
+        for (JsonObject product : products) {
+            JsonObject category = product.getAsJsonObject("category");
+            byId.putIfAbsent(category.get("id").getAsString(), category);
+        }
+        JsonArray categories = new JsonArray();
+        byId.values().stream()
+                .sorted(Comparator.comparing(category -> category.get("id").getAsString()))
+                .forEach(categories::add);
+        return categories;
+    }
+
+    private JsonObject addToCart(String cartId, JsonObject item) {
+        Map<String, Integer> cart = carts.computeIfAbsent(cartId, ignored -> new ConcurrentHashMap<>());
+        String productId = item.get("product_id").getAsString();
+        int quantity = item.has("quantity") ? item.get("quantity").getAsInt() : 1;
+        cart.merge(productId, quantity, Integer::sum);
+        JsonObject result = new JsonObject();
+        result.addProperty("result", "item added or updated");
+        return result;
+    }
+
+    private JsonObject cart(String cartId) {
+        Map<String, Integer> cart = carts.getOrDefault(cartId, Map.of());
+        JsonArray items = new JsonArray();
+        cart.forEach((productId, quantity) -> {
+            JsonObject item = new JsonObject();
+            item.addProperty("quantity", quantity);
+            item.add("product", findProduct(productId));
+            items.add(item);
+        });
+        JsonObject result = new JsonObject();
+        result.addProperty("id", cartId);
+        result.add("cart_items", items);
+        return result;
+    }
+
+    private JsonObject findProduct(String productId) {
+        for (JsonObject product : products) {
+            if (product.get("id").getAsString().equals(productId)) {
+                return product;
+            }
+        }
+        return null;
+    }
+
+    private void delay() {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<JsonObject> loadProducts() {
+        try (InputStream input = LocalToolshopServer.class.getResourceAsStream(RESOURCE_ROOT + "products.json")) {
+            if (input == null) {
+                throw new IllegalStateException("Unable to find " + RESOURCE_ROOT + "products.json in classpath");
+            }
+            List<JsonObject> products = new ArrayList<>();
+            for (JsonElement product : JsonParser.parseReader(new InputStreamReader(input, StandardCharsets.UTF_8)).getAsJsonArray()) {
+                products.add(product.getAsJsonObject());
+            }
+            return products;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load " + RESOURCE_ROOT + "products.json", e);
+        }
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream input = LocalToolshopServer.class.getResourceAsStream(RESOURCE_ROOT + name)) {
+            return input == null ? null : input.readAllBytes();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static JsonObject readJson(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        return body.isBlank() ? new JsonObject() : JsonParser.parseString(body).getAsJsonObject();
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("message", message);
+        return error;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, JsonElement body) throws IOException {
+        send(exchange, status, "application/json", gson.toJson(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package base;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Samples a Chromium page's memory through CDP after every step: {@code Performance.getMetrics}
+ * ({@code JSHeapUsedSize}, {@code Nodes}, {@code JSEventListeners}), each time right after a forced
+ * garbage collection ({@code HeapProfiler.collectGarbage}) so only reachable memory is counted.
+ * <p>
+ * The growth per step is the least-squares slope over the scenario's samples. Once there are at
+ * least {@code perf.memory.minSamples} samples, a heap slope above {@code perf.memory.maxHeapSlopeKb}
+ * or a DOM node slope above {@code perf.memory.maxNodeSlope} is reported as a leak. Sampling starts
+ * with the first navigation; steps that run on {@code about:blank} are skipped.
+ * <p>
+ * The slopes only mean something for flows that stay on one page, such as paging through results or
+ * adding to the cart repeatedly. Moving between routes replaces the DOM, so a scenario that navigates
+ * can exceed {@code perf.memory.maxNodeSlope} without leaking.
+ * <p>
+ * Opt-in with {@code perf.memory.enabled=true} or a {@code @memory} tag; forcing a collection on
+ * every step is not free.
+ */
+public final class MemoryMonitor {
+    private static final Logger logger = LogManager.getLogger(MemoryMonitor.class);
+    private static final String TAG = "@memory";
+
+    private final Page page;
+    private final CDPSession session;
+    private final int minSamples;
+    private final double maxHeapSlopeKb;
+    private final double maxNodeSlope;
+    private final List<Sample> samples = new ArrayList<>();
+
+    private MemoryMonitor(Page page, CDPSession session, ConfigReader config) {
+        this.page = page;
+        this.session = session;
+        this.minSamples = config.getMemoryMinSamples();
+        this.maxHeapSlopeKb = config.getMemoryMaxHeapSlopeKb();
+        this.maxNodeSlope = config.getMemoryMaxNodeSlope();
+    }
+
+    /**
+     * Starts monitoring the page when enabled for the scenario, or returns {@code null}.
+     */
+    static MemoryMonitor attach(Page page, Collection<String> tags, ConfigReader config) {
+        if (!config.isMemoryMonitorEnabled() && !tags.contains(TAG)) {
+            return null;
+        }
+        if (!"chromium".equalsIgnoreCase(config.getBrowserName())) {
+            logger.warn("Memory monitoring needs Chromium, skipped on {}", config.getBrowserName());
+            return null;
+        }
+        CDPSession session = page.context().newCDPSession(page);
+        session.send("Performance.enable");
+        return new MemoryMonitor(page, session, config);
+    }
+
+    public void sample(String label) {
+        try {
+            if ("about:blank".equals(page.url())) {
+                // Nothing loaded yet, the blank page would anchor the slope at zero
+                return;
+            }
+            session.send("HeapProfiler.collectGarbage");
+            JsonObject result = session.send("Performance.getMetrics");
+            Sample sample = new Sample(label);
+            for (JsonElement element : result.getAsJsonArray("metrics")) {
+                JsonObject metric = element.getAsJsonObject();
+                double value = metric.get("value").getAsDouble();
+                switch (metric.get("name").getAsString()) {
+                    case "JSHeapUsedSize":
+                        sample.heapBytes = value;
+                        break;
+                    case "Nodes":
+                        sample.nodes = value;
+                        break;
+                    case "JSEventListeners":
+                        sample.listeners = value;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            samples.add(sample);
+        } catch (RuntimeException e) {
+            // The page may be gone after a failed step; the remaining samples still count
+            logger.debug("Memory sample '{}' failed: {}", label, e.getMessage());
+        }
+    }
+
+    public double getHeapSlopeKb() {
+        return slope(sample -> sample.heapBytes) / 1024;
+    }
+
+    public double getNodeSlope() {
+        return slope(sample -> sample.nodes);
+    }
+
+    /**
+     * Describes the leak when a slope exceeds its limit, or returns {@code null}.
+     */
+    public String leakDescription() {
+        if (samples.size() < minSamples) {
+            return null;
+        }
+        List<String> problems = new ArrayList<>();
+        double heapSlope = getHeapSlopeKb();
+        if (heapSlope > maxHeapSlopeKb) {
+            problems.add(String.format(Locale.ROOT, "JS heap grows %.1f KB per step (limit %.1f)", heapSlope, maxHeapSlopeKb));
+        }
+        double nodeSlope = getNodeSlope();
+        if (nodeSlope > maxNodeSlope) {
+            problems.add(String.format(Locale.ROOT, "DOM grows %.1f nodes per step (limit %.1f)", nodeSlope, maxNodeSlope));
+        }
+        return problems.isEmpty() ? null : String.join("; ", problems) + " over " + samples.size() + " steps";
+    }
+
+    /**
+     * The growth curve as table rows: step, heap KB, DOM nodes and event listeners.
+     */
+    public String[][] toTable() {
+        String[][] rows = new String[samples.size() + 1][];
+        rows[0] = new String[]{"Step", "JS heap KB", "DOM nodes", "Event listeners"};
+        for (int i = 0; i < samples.size(); i++) {
+            Sample sample = samples.get(i);
+            rows[i + 1] = new String[]{sample.label, String.valueOf(Math.round(sample.heapBytes / 1024)),
+                    String.valueOf(Math.round(sample.nodes)), String.valueOf(Math.round(sample.listeners))};
+        }
+        return rows;
+    }
+
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder();
+        for (String[] row : toTable()) {
+            csv.append(String.join(",", row)).append('\n');
+        }
+        return csv.toString();
+    }
+
+    public boolean isEmpty() {
+        return samples.isEmpty();
+    }
+
+    private double slope(ToDoubleFunction<Sample> metric) {
+        int n = samples.size();
+        if (n < 2) {
+            return 0;
+        }
+        double meanX = (n - 1) / 2.0;
+        double meanY = samples.stream().mapToDouble(metric).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            covariance += (i - meanX) * (metric.applyAsDouble(samples.get(i)) - meanY);
+            variance += (i - meanX) * (i - meanX);
+        }
+        return covariance / variance;
+    }
+
+    private static final class Sample {
+        private final String label;
+        private double heapBytes;
+        private double nodes;
+        private double listeners;
+
+        private Sample(String label) {
+            this.label = label;
+        }
+    }
+}
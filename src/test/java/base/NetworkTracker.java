@@ -0,0 +1,220 @@
+package base;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Response;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Follows a page's network activity so steps can wait for what they need instead of a fixed time.
+ * <p>
+ * The tracker counts in-flight requests and journals every response in arrival order. A URL pattern is
+ * matched against each response once, when the pattern is first awaited and for every later response,
+ * and its matches are kept in an index, so waiting does not rescan the journal. Take a {@link #mark()}
+ * before the action that triggers a request and pass it to {@link #awaitResponse} to ignore older
+ * responses.
+ * <p>
+ * Requests that stay open by design (event streams, web sockets, beacons) are not counted, and a request
+ * in flight for longer than {@value #STALLED_MILLIS} ms is taken for a long poll and ignored too, so
+ * {@link #awaitQuiet} does not wait on them.
+ * <p>
+ * Playwright delivers events on the thread that waits, so both waits keep the page's event loop
+ * running through {@code waitForCondition} and {@code waitForTimeout}. {@link #awaitResponse} uses the
+ * page's default timeout, {@link #awaitQuiet} gives up after {@value #QUIET_TIMEOUT_MILLIS} ms.
+ */
+public final class NetworkTracker {
+    private static final Logger logger = LogManager.getLogger(NetworkTracker.class);
+    private static final Map<Page, NetworkTracker> trackers = new ConcurrentHashMap<>();
+    private static final Set<String> LONG_LIVED_TYPES = Set.of("eventsource", "websocket", "ping");
+    private static final long STALLED_MILLIS = 5000;
+    private static final long QUIET_TIMEOUT_MILLIS = 30000;
+    private static final long POLL_MILLIS = 50;
+
+    private final Page page;
+    private final List<JournalEntry> journal = new ArrayList<>();
+    private final Map<String, PatternIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<Request, Long> inFlight = new HashMap<>();
+    private long lastActivity = System.currentTimeMillis();
+
+    private NetworkTracker(Page page) {
+        this.page = page;
+    }
+
+    /**
+     * The tracker of the page, attached on first use. Attach it before navigating to see every request;
+     * {@code PlaywrightFactory} does so for scenario pages.
+     */
+    public static NetworkTracker of(Page page) {
+        return trackers.computeIfAbsent(page, NetworkTracker::attach);
+    }
+
+    private static NetworkTracker attach(Page page) {
+        NetworkTracker tracker = new NetworkTracker(page);
+        page.onRequest(tracker::onRequest);
+        page.onRequestFinished(tracker::onRequestDone);
+        page.onRequestFailed(tracker::onRequestDone);
+        page.onResponse(tracker::onResponse);
+        page.onClose(closed -> trackers.remove(closed));
+        return tracker;
+    }
+
+    private synchronized void onRequest(Request request) {
+        if (LONG_LIVED_TYPES.contains(request.resourceType())) {
+            return;
+        }
+        lastActivity = System.currentTimeMillis();
+        inFlight.put(request, lastActivity);
+    }
+
+    private synchronized void onRequestDone(Request request) {
+        if (inFlight.remove(request) != null) {
+            lastActivity = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized void onResponse(Response response) {
+        JournalEntry entry = new JournalEntry(journal.size(), response.url(), response.status());
+        journal.add(entry);
+        for (PatternIndex index : indexes.values()) {
+            index.offer(entry);
+        }
+    }
+
+    /**
+     * A position in the response journal; responses journaled after it are at or past the mark.
+     */
+    public synchronized long mark() {
+        return journal.size();
+    }
+
+    /**
+     * The number of counted requests in flight, leaving out those stalled for {@value #STALLED_MILLIS} ms.
+     */
+    public synchronized int getInFlight() {
+        long stalledBefore = System.currentTimeMillis() - STALLED_MILLIS;
+        int count = 0;
+        for (long startedAt : inFlight.values()) {
+            if (startedAt > stalledBefore) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Waits until no request has been in flight for {@code idleMillis}, and fails when the network
+     * is still busy after {@value #QUIET_TIMEOUT_MILLIS} ms.
+     */
+    public void awaitQuiet(long idleMillis) {
+        long start = System.currentTimeMillis();
+        long deadline = start + QUIET_TIMEOUT_MILLIS;
+        while (true) {
+            int active = getInFlight();
+            long now = System.currentTimeMillis();
+            long remaining;
+            synchronized (this) {
+                remaining = idleMillis - (now - lastActivity);
+            }
+            if (active == 0 && remaining <= 0) {
+                logger.debug("Network quiet after {} ms", now - start);
+                return;
+            }
+            if (now >= deadline) {
+                throw new IllegalStateException("Network not quiet after " + QUIET_TIMEOUT_MILLIS + " ms, "
+                        + active + " request(s) in flight");
+            }
+            // Polled rather than waited on, a request can stop counting by stalling without any event
+            long wait = active > 0 ? POLL_MILLIS : remaining;
+            page.waitForTimeout(Math.max(1, Math.min(wait, deadline - now)));
+        }
+    }
+
+    /**
+     * Waits for the first response at or after {@code sinceMark} whose URL contains a match of
+     * {@code urlPattern}, and fails when its status is 400 or above. Any status below 400 passes,
+     * so a 201, 204 or 304 counts as success where a check for 200 alone would wait on.
+     */
+    public JournalEntry awaitResponse(Pattern urlPattern, long sinceMark) {
+        PatternIndex index = index(urlPattern);
+        JournalEntry[] found = new JournalEntry[1];
+        page.waitForCondition(() -> (found[0] = index.firstSince(sinceMark)) != null);
+        if (found[0].getStatus() >= 400) {
+            throw new IllegalStateException("Expected a successful response for " + urlPattern + " but "
+                    + found[0].getUrl() + " returned " + found[0].getStatus());
+        }
+        return found[0];
+    }
+
+    private synchronized PatternIndex index(Pattern urlPattern) {
+        PatternIndex index = indexes.get(urlPattern.pattern());
+        if (index == null) {
+            index = new PatternIndex(urlPattern);
+            for (JournalEntry entry : journal) {
+                index.offer(entry);
+            }
+            indexes.put(urlPattern.pattern(), index);
+        }
+        return index;
+    }
+
+    /**
+     * A journaled response: its position in the journal, URL and status.
+     */
+    public static final class JournalEntry {
+        private final long position;
+        private final String url;
+        private final int status;
+
+        private JournalEntry(long position, String url, int status) {
+            this.position = position;
+            this.url = url;
+            this.status = status;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private static final class PatternIndex {
+        private final Pattern pattern;
+        private final List<JournalEntry> matches = new ArrayList<>();
+
+        private PatternIndex(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        private synchronized void offer(JournalEntry entry) {
+            if (pattern.matcher(entry.url).find()) {
+                matches.add(entry);
+            }
+        }
+
+        private synchronized JournalEntry firstSince(long mark) {
+            // Matches are in journal order, most waits look for one of the latest
+            for (int i = matches.size() - 1; i >= 0; i--) {
+                if (matches.get(i).position < mark) {
+                    return i + 1 < matches.size() ? matches.get(i + 1) : null;
+                }
+            }
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+    }
+}
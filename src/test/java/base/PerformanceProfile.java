@@ -0,0 +1,98 @@
+package base;
+
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+
+import java.util.Collection;
+
+/**
+ * Network and CPU conditions a scenario runs under, applied through the Chrome DevTools Protocol
+ * ({@code Network.emulateNetworkConditions} and {@code Emulation.setCPUThrottlingRate}), so only
+ * Chromium can be throttled.
+ * <p>
+ * The profile comes from {@code perf.profile} and can be overridden per scenario with a
+ * {@code @profile:<name>} tag.
+ */
+public enum PerformanceProfile {
+    NONE("none", 0, 0, 0, 1),
+    // Chrome DevTools' Fast 3G preset
+    FAST_3G("fast3g", 563, 1.6, 0.75, 1),
+    SLOW_4G("slow4g", 150, 4, 3, 1),
+    // Fast 3G network on a phone with roughly a sixth of a desktop's CPU
+    LOW_END_MOBILE("lowEndMobile", 563, 1.6, 0.75, 6);
+
+    private static final String TAG_PREFIX = "@profile:";
+    private static final ThreadLocal<PerformanceProfile> current = ThreadLocal.withInitial(() -> NONE);
+
+    private final String name;
+    private final long latencyMillis;
+    private final double downloadMbps;
+    private final double uploadMbps;
+    private final double cpuSlowdown;
+
+    PerformanceProfile(String name, long latencyMillis, double downloadMbps, double uploadMbps, double cpuSlowdown) {
+        this.name = name;
+        this.latencyMillis = latencyMillis;
+        this.downloadMbps = downloadMbps;
+        this.uploadMbps = uploadMbps;
+        this.cpuSlowdown = cpuSlowdown;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static PerformanceProfile fromName(String name) {
+        for (PerformanceProfile profile : values()) {
+            if (profile.name.equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalStateException("Unknown performance profile '" + name
+                + "', expected none, fast3g, slow4g or lowEndMobile");
+    }
+
+    /**
+     * Returns the profile name of the first {@code @profile:<name>} tag, or {@code null} if there is none.
+     */
+    public static String profileNameFromTags(Collection<String> tags) {
+        for (String tag : tags) {
+            if (tag.startsWith(TAG_PREFIX) && tag.length() > TAG_PREFIX.length()) {
+                return tag.substring(TAG_PREFIX.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The profile the calling thread's scenario runs under.
+     */
+    public static PerformanceProfile current() {
+        return current.get();
+    }
+
+    static void setCurrent(PerformanceProfile profile) {
+        current.set(profile);
+    }
+
+    void apply(Page page) {
+        CDPSession session = page.context().newCDPSession(page);
+        session.send("Network.enable");
+        JsonObject conditions = new JsonObject();
+        conditions.addProperty("offline", false);
+        conditions.addProperty("latency", latencyMillis);
+        conditions.addProperty("downloadThroughput", bytesPerSecond(downloadMbps));
+        conditions.addProperty("uploadThroughput", bytesPerSecond(uploadMbps));
+        session.send("Network.emulateNetworkConditions", conditions);
+        if (cpuSlowdown > 1) {
+            JsonObject rate = new JsonObject();
+            rate.addProperty("rate", cpuSlowdown);
+            session.send("Emulation.setCPUThrottlingRate", rate);
+        }
+    }
+
+    private static double bytesPerSecond(double mbps) {
+        return mbps * 1_000_000 / 8;
+    }
+}
@@ -2,55 +2,207 @@ package base;
 
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import config.ConfigReader;
+import io.cucumber.java.Scenario;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reporting.ArtifactStore;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PlaywrightFactory {
-    private Playwright playwright;
-    private Browser browser;
+    private static final Logger logger = LogManager.getLogger(PlaywrightFactory.class);
+    private static final ThreadLocal<BrowserWorker> worker = new ThreadLocal<>();
+    private static final Set<BrowserWorker> workers = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(PlaywrightFactory::closeAllWorkers, "playwright-shutdown"));
+    }
+
     private BrowserContext context;
     private Page page;
+    private Scenario scenario;
+    private ScenarioTracing tracing;
+    private VideoRecorder videoRecorder;
+    private String featureName;
+    private Path harRecording;
+    private Path traceFile;
+    private Path videoFile;
+    private EndpointTimings endpointTimings;
+    private PerformanceProfile performanceProfile = PerformanceProfile.NONE;
+    private MemoryMonitor memoryMonitor;
+    private VirtualTime virtualTime;
 
-    public Page initPage() {
+    public Page initPage(Scenario scenario) {
         ConfigReader config = new ConfigReader();
-        String browserName = config.getBrowserName();
-        boolean headless = config.isHeadless();
+        LocalToolshopServer.startIfLocal(config);
+        BrowserWorker currentWorker = currentWorker(config);
 
-        playwright = Playwright.create();
-        browser = launchBrowser(browserName, headless);
-        context = browser.newContext();
+        context = currentWorker.newContext(new Browser.NewContextOptions());
         page = context.newPage();
         page.setDefaultTimeout(config.getDefaultTimeout());
-        playwright.selectors().setTestIdAttribute("data-test");
+
+        this.scenario = scenario;
+        tracing = currentWorker.getTracing();
+        videoRecorder = currentWorker.getVideoRecorder();
+        tracing.startChunk(context, scenario.getName());
+        featureName = featureName(scenario);
+        harRecording = HarNetwork.attach(context, featureName, config);
+        endpointTimings = EndpointTimings.attach(page, config);
+        NetworkTracker.of(page);
+        applyPerformanceProfile(scenario, config);
+        memoryMonitor = MemoryMonitor.attach(page, scenario.getSourceTagNames(), config);
+        virtualTime = VirtualTime.attach(page, scenario.getSourceTagNames());
         return page;
     }
 
-    private Browser launchBrowser(String browserName, boolean headless) {
-        BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions().setHeadless(headless);
-        if ("firefox".equalsIgnoreCase(browserName)) {
-            return playwright.firefox().launch(launchOptions);
+    private void applyPerformanceProfile(Scenario scenario, ConfigReader config) {
+        String profileName = PerformanceProfile.profileNameFromTags(scenario.getSourceTagNames());
+        PerformanceProfile profile = PerformanceProfile.fromName(profileName != null ? profileName : config.getPerfProfile());
+        if (profile != PerformanceProfile.NONE) {
+            if ("chromium".equalsIgnoreCase(config.getBrowserName())) {
+                profile.apply(page);
+                logger.info("Running under performance profile '{}'", profile.getName());
+            } else {
+                logger.warn("Performance profile '{}' needs Chromium, running {} unthrottled",
+                        profile.getName(), config.getBrowserName());
+                profile = PerformanceProfile.NONE;
+            }
+        }
+        performanceProfile = profile;
+        PerformanceProfile.setCurrent(profile);
+    }
+
+    private static String featureName(Scenario scenario) {
+        String path = scenario.getUri().getSchemeSpecificPart();
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        return fileName.endsWith(".feature") ? fileName.substring(0, fileName.length() - ".feature".length()) : fileName;
+    }
+
+    private static BrowserWorker currentWorker(ConfigReader config) {
+        BrowserWorker currentWorker = worker.get();
+        if (currentWorker != null && !currentWorker.isUsable()) {
+            logger.warn("Browser of worker thread {} is disconnected, relaunching", Thread.currentThread().getName());
+            workers.remove(currentWorker);
+            currentWorker.close();
+            currentWorker = null;
         }
-        if ("webkit".equalsIgnoreCase(browserName)) {
-            return playwright.webkit().launch(launchOptions);
+        if (currentWorker == null) {
+            currentWorker = adoptOrphanedWorker();
+            if (currentWorker == null) {
+                currentWorker = BrowserWorker.launch(config);
+                workers.add(currentWorker);
+            }
+            worker.set(currentWorker);
+        }
+        return currentWorker;
+    }
+
+    private static synchronized BrowserWorker adoptOrphanedWorker() {
+        for (BrowserWorker candidate : workers) {
+            if (candidate.isOrphaned()) {
+                candidate.adopt();
+                if (candidate.isUsable()) {
+                    return candidate;
+                }
+                workers.remove(candidate);
+                candidate.close();
+            }
         }
-        return playwright.chromium().launch(launchOptions);
+        return null;
     }
 
     public void close() {
-        if (page != null) {
-            page.close();
+        String scenarioDir = scenario == null ? null : ArtifactStore.scenarioDirName(scenario.getName(), scenario.getId());
+        Path video = null;
+        try {
+            if (context != null && tracing != null) {
+                Path target = Paths.get(new ConfigReader().getTraceDir(), scenarioDir + ".zip");
+                traceFile = tracing.stopChunk(context, scenario.isFailed(), target);
+            }
+            if (page != null && videoRecorder != null && videoRecorder.isEnabled() && page.video() != null) {
+                video = page.video().path();
+            }
+            if (page != null && !page.isClosed()) {
+                page.close();
+            }
+            if (context != null) {
+                context.close();
+            }
+        } finally {
+            page = null;
+            context = null;
+            tracing = null;
+            PerformanceProfile.setCurrent(PerformanceProfile.NONE);
         }
-        if (context != null) {
-            context.close();
+        if (video != null) {
+            videoFile = videoRecorder.finish(video, scenario.isFailed(), scenarioDir);
         }
-        if (browser != null) {
-            browser.close();
+        if (harRecording != null) {
+            HarNetwork.completeRecording(harRecording, featureName, new ConfigReader());
+            harRecording = null;
         }
-        if (playwright != null) {
-            playwright.close();
+    }
+
+    /**
+     * The profile the scenario actually ran under; {@code none} when throttling was requested on a browser without CDP.
+     */
+    public PerformanceProfile getPerformanceProfile() {
+        return performanceProfile;
+    }
+
+    /**
+     * The scenario's memory monitor, or {@code null} when memory is not monitored.
+     */
+    public MemoryMonitor getMemoryMonitor() {
+        return memoryMonitor;
+    }
+
+    /**
+     * The scenario's fake clock, or {@code null} when the scenario runs on real time.
+     */
+    public VirtualTime getVirtualTime() {
+        return virtualTime;
+    }
+
+    public EndpointTimings getEndpointTimings() {
+        return endpointTimings;
+    }
+
+    /**
+     * The trace zip of the scenario closed last, or {@code null} when its trace was not kept.
+     */
+    public Path getTraceFile() {
+        return traceFile;
+    }
+
+    /**
+     * The video of the scenario closed last, or {@code null} when it was not kept.
+     */
+    public Path getVideoFile() {
+        return videoFile;
+    }
+
+    /**
+     * Closes the browser owned by the calling thread. The next {@link #initPage(Scenario)} on this thread launches a new one.
+     */
+    public static void closeWorker() {
+        BrowserWorker currentWorker = worker.get();
+        worker.remove();
+        if (currentWorker != null) {
+            workers.remove(currentWorker);
+            currentWorker.close();
         }
     }
-}
 
+    private static void closeAllWorkers() {
+        for (BrowserWorker remaining : workers) {
+            remaining.close();
+        }
+        workers.clear();
+    }
+}
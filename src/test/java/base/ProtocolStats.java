@@ -0,0 +1,255 @@
+package base;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.impl.Transport;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the driver round trips of every Playwright call, attributed to the running Cucumber step and
+ * to the page-object method that made the call.
+ * <p>
+ * The Playwright connection's transport is replaced through reflection with one that notes every
+ * outgoing message and times it until its response arrives. Playwright Java is synchronous, so the
+ * message is sent on the thread making the call: the step is the one set by
+ * {@code plugins.ProtocolStatsPlugin} for that thread, and the method is the outermost {@code pages.}
+ * frame on the stack, so {@code HomePage.areAllToolsVisible} also counts what its helpers send.
+ * Calls made outside page objects count as {@code (direct)}, calls outside steps as {@code (hooks)}.
+ * <p>
+ * Enabled by {@code perf.protocolStats}, off by default. At shutdown the chattiest methods are logged
+ * and all counts are written to {@code protocol-stats.json} in the report directory.
+ * <p>
+ * This depends on Playwright internals that are not part of its API: the
+ * {@code com.microsoft.playwright.impl.Transport} interface and the {@code transport} field of
+ * {@code Connection}. A Playwright upgrade may break it: a changed field only disables the counting at
+ * runtime, but a changed {@code Transport} interface fails this class at compile time.
+ */
+public final class ProtocolStats {
+    private static final Logger logger = LogManager.getLogger(ProtocolStats.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+    private static final ThreadLocal<String> currentStep = new ThreadLocal<>();
+    private static final Map<String, Counter> stepCounters = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> methodCounters = new ConcurrentHashMap<>();
+    private static final int TOP_METHODS = 10;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ProtocolStats::writeRunSummary, "protocol-stats"));
+    }
+
+    private ProtocolStats() {
+    }
+
+    /**
+     * Wraps the connection of a freshly created Playwright instance. Failing to reach Playwright's
+     * internals only disables the counting.
+     */
+    static void install(Playwright playwright) {
+        try {
+            Field connectionField = Class.forName("com.microsoft.playwright.impl.ChannelOwner").getDeclaredField("connection");
+            connectionField.setAccessible(true);
+            Object connection = connectionField.get(playwright);
+            Field transportField = connection.getClass().getDeclaredField("transport");
+            transportField.setAccessible(true);
+            transportField.set(connection, new CountingTransport((Transport) transportField.get(connection)));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Driver round trips are not counted, the Playwright connection could not be wrapped: {}", e.toString());
+        }
+    }
+
+    /**
+     * Attributes the following calls of this thread to {@code stepText}; {@code null} ends the step.
+     */
+    public static void setStep(String stepText) {
+        if (stepText == null) {
+            currentStep.remove();
+        } else {
+            currentStep.set(stepText);
+            stepCounters.computeIfAbsent(stepText, ignored -> new Counter()).executions.incrementAndGet();
+        }
+    }
+
+    private static String pageObjectMethod() {
+        return stackWalker.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("pages."))
+                .reduce((inner, outer) -> outer)
+                .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+                .orElse("(direct)"));
+    }
+
+    private static String simpleName(String className) {
+        String simple = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simple.indexOf('$');
+        return nested > 0 ? simple.substring(0, nested) : simple;
+    }
+
+    private static String methodName(String method) {
+        // lambda$clickFirstProduct$2 belongs to clickFirstProduct
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', "lambda$".length());
+            return end > 0 ? method.substring("lambda$".length(), end) : method;
+        }
+        return method;
+    }
+
+    private static void writeRunSummary() {
+        if (methodCounters.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Counter>> methods = sorted(methodCounters);
+        StringBuilder top = new StringBuilder();
+        for (Map.Entry<String, Counter> method : methods.subList(0, Math.min(TOP_METHODS, methods.size()))) {
+            top.append(String.format("%n  %6d round trips %8d ms  %s (%s)", method.getValue().roundTrips.get(),
+                    method.getValue().nanos.get() / 1_000_000, method.getKey(), method.getValue().topCalls(3)));
+        }
+        logger.info("Chattiest page-object methods:{}", top);
+
+        JsonObject root = new JsonObject();
+        root.add("methods", toJson(methods, "method"));
+        root.add("steps", toJson(sorted(stepCounters), "step"));
+        Path file = Paths.get(new ConfigReader().getReportDir(), "protocol-stats.json");
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                gson.toJson(root, writer);
+            }
+            logger.info("Driver round trips written to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to write driver round trips to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static List<Map.Entry<String, Counter>> sorted(Map<String, Counter> counters) {
+        List<Map.Entry<String, Counter>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Counter> entry) -> entry.getValue().roundTrips.get()).reversed()
+                .thenComparing(Map.Entry::getKey));
+        return entries;
+    }
+
+    private static JsonArray toJson(List<Map.Entry<String, Counter>> entries, String keyName) {
+        JsonArray rows = new JsonArray();
+        for (Map.Entry<String, Counter> entry : entries) {
+            Counter counter = entry.getValue();
+            JsonObject row = new JsonObject();
+            row.addProperty(keyName, entry.getKey());
+            if (counter.executions.get() > 0) {
+                row.addProperty("executions", counter.executions.get());
+                row.addProperty("roundTripsPerExecution", Math.round(counter.roundTrips.get() * 10.0 / counter.executions.get()) / 10.0);
+            }
+            row.addProperty("roundTrips", counter.roundTrips.get());
+            row.addProperty("driverMs", counter.nanos.get() / 1_000_000);
+            JsonObject calls = new JsonObject();
+            counter.sortedCalls().forEach(call -> calls.addProperty(call.getKey(), call.getValue().get()));
+            row.add("calls", calls);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static final class Counter {
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong roundTrips = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+        private void add(String call, long elapsedNanos) {
+            roundTrips.incrementAndGet();
+            nanos.addAndGet(elapsedNanos);
+            calls.computeIfAbsent(call, ignored -> new AtomicLong()).incrementAndGet();
+        }
+
+        private List<Map.Entry<String, AtomicLong>> sortedCalls() {
+            return calls.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, AtomicLong> entry) -> entry.getValue().get()).reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .collect(Collectors.toList());
+        }
+
+        private String topCalls(int limit) {
+            return sortedCalls().stream().limit(limit)
+                    .map(call -> call.getKey() + " x" + call.getValue().get())
+                    .collect(Collectors.joining(", "));
+        }
+    }
+
+    /**
+     * Times each request from {@link #send} until the response with the same id comes back through
+     * {@link #poll}.
+     */
+    private static final class CountingTransport implements Transport {
+        private final Transport delegate;
+        private final Map<Integer, PendingCall> pending = new ConcurrentHashMap<>();
+
+        private CountingTransport(Transport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void send(JsonObject message) {
+            if (message.has("id") && message.has("method")) {
+                String guid = message.has("guid") ? message.get("guid").getAsString() : "";
+                int type = guid.indexOf('@');
+                // guid is <type>@<id>, e.g. frame@3f2c...: the call becomes frame.click
+                String call = (type > 0 ? guid.substring(0, type) + "." : "") + message.get("method").getAsString();
+                String step = currentStep.get();
+                pending.put(message.get("id").getAsInt(), new PendingCall(step == null ? "(hooks)" : step,
+                        pageObjectMethod(), call, System.nanoTime()));
+            }
+            delegate.send(message);
+        }
+
+        @Override
+        public com.google.gson.JsonObject poll(Duration timeout) {
+            JsonObject message = delegate.poll(timeout);
+            if (message != null && message.has("id")) {
+                PendingCall call = pending.remove(message.get("id").getAsInt());
+                if (call != null) {
+                    long elapsed = System.nanoTime() - call.startNanos;
+                    stepCounters.computeIfAbsent(call.step, ignored -> new Counter()).add(call.call, elapsed);
+                    methodCounters.computeIfAbsent(call.method, ignored -> new Counter()).add(call.call, elapsed);
+                }
+            }
+            return message;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class PendingCall {
+        private final String step;
+        private final String method;
+        private final String call;
+        private final long startNanos;
+
+        private PendingCall(String step, String method, String call, long startNanos) {
+            this.step = step;
+            this.method = method;
+            this.call = call;
+            this.startNanos = startNanos;
+        }
+    }
+}
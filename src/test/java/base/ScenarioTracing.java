@@ -0,0 +1,69 @@
+package base;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Tracing;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Wires {@code trace.mode=off|on|retain-on-failure} into browser contexts.
+ * <p>
+ * Tracing is started once when a context is created, with screenshots and DOM snapshots. Each
+ * scenario then records its own chunk: with {@code on} every chunk is written to a zip, with
+ * {@code retain-on-failure} only the chunks of failed scenarios are, and passing scenarios' chunks
+ * are discarded without touching the disk.
+ */
+final class ScenarioTracing {
+    private static final Logger logger = LogManager.getLogger(ScenarioTracing.class);
+
+    private final boolean enabled;
+    private final boolean retainOnFailureOnly;
+
+    ScenarioTracing(String mode) {
+        if (!"off".equalsIgnoreCase(mode) && !"on".equalsIgnoreCase(mode) && !"retain-on-failure".equalsIgnoreCase(mode)) {
+            throw new IllegalStateException("Unknown trace.mode '" + mode + "', expected off, on or retain-on-failure");
+        }
+        this.enabled = !"off".equalsIgnoreCase(mode);
+        this.retainOnFailureOnly = "retain-on-failure".equalsIgnoreCase(mode);
+    }
+
+    void start(BrowserContext context) {
+        if (enabled) {
+            context.tracing().start(new Tracing.StartOptions()
+                    .setScreenshots(true)
+                    .setSnapshots(true));
+        }
+    }
+
+    void startChunk(BrowserContext context, String title) {
+        if (enabled) {
+            context.tracing().startChunk(new Tracing.StartChunkOptions().setTitle(title));
+        }
+    }
+
+    /**
+     * Ends the scenario's chunk and returns the zip it was written to, or {@code null} when it was discarded.
+     */
+    Path stopChunk(BrowserContext context, boolean failed, Path traceFile) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            if (retainOnFailureOnly && !failed) {
+                context.tracing().stopChunk();
+                return null;
+            }
+            Files.createDirectories(traceFile.getParent());
+            context.tracing().stopChunk(new Tracing.StopChunkOptions().setPath(traceFile));
+            logger.info("Trace written to {}", traceFile);
+            return traceFile;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to save trace to {}: {}", traceFile, e.getMessage());
+            return null;
+        }
+    }
+}
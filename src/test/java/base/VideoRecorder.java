@@ -0,0 +1,158 @@
+package base;
+
+import com.microsoft.playwright.Browser;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Wires {@code video.enabled} into browser contexts.
+ * <p>
+ * Contexts record at {@code video.width} x {@code video.height} into {@code video.dir}. When a
+ * scenario's context has closed, a failed scenario's video is renamed after the scenario and kept.
+ * A passing scenario's video is deleted on a background thread unless {@code video.keepPassed} is
+ * set. After every scenario the oldest videos kept by this run are evicted until they fit in
+ * {@code video.maxDirMb}. Raw recordings are never evicted: other workers' scenarios and pre-warmed
+ * pool contexts may still be writing them.
+ */
+final class VideoRecorder {
+    private static final Logger logger = LogManager.getLogger(VideoRecorder.class);
+    private static final ExecutorService cleaner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "video-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Set<Path> keptVideos = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(VideoRecorder::drain, "video-cleaner-shutdown"));
+    }
+
+    private final boolean enabled;
+    private final Path videoDir;
+    private final int width;
+    private final int height;
+    private final boolean keepPassed;
+    private final long maxDirBytes;
+
+    VideoRecorder(ConfigReader config) {
+        this.enabled = config.isVideoEnabled();
+        this.videoDir = Paths.get(config.getVideoDir());
+        this.width = config.getVideoWidth();
+        this.height = config.getVideoHeight();
+        this.keepPassed = config.isVideoKeepPassed();
+        this.maxDirBytes = config.getVideoMaxDirMb() * 1024 * 1024;
+    }
+
+    Browser.NewContextOptions apply(Browser.NewContextOptions options) {
+        if (enabled) {
+            options.setRecordVideoDir(videoDir).setRecordVideoSize(width, height);
+        }
+        return options;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Keeps or discards a scenario's video once its context has closed, which is when Playwright has
+     * finished writing it. Returns the kept video or {@code null}.
+     */
+    Path finish(Path video, boolean failed, String scenarioDir) {
+        if (video == null) {
+            return null;
+        }
+        Path kept = null;
+        if (failed || keepPassed) {
+            Path target = videoDir.resolve(scenarioDir + ".webm");
+            try {
+                kept = Files.move(video, target, StandardCopyOption.REPLACE_EXISTING);
+                keptVideos.add(kept);
+                logger.info("Video written to {}", kept);
+            } catch (IOException e) {
+                logger.warn("Failed to keep video {}: {}", video, e.getMessage());
+            }
+        } else {
+            cleaner.execute(() -> delete(video));
+        }
+        if (maxDirBytes > 0) {
+            cleaner.execute(this::enforceQuota);
+        }
+        return kept;
+    }
+
+    private void enforceQuota() {
+        List<Path> videos = keptVideos.stream()
+                .filter(Files::isRegularFile)
+                .sorted(Comparator.comparing(VideoRecorder::lastModified))
+                .collect(Collectors.toList());
+        long total = 0;
+        for (Path video : videos) {
+            total += size(video);
+        }
+        for (Path video : videos) {
+            if (total <= maxDirBytes) {
+                break;
+            }
+            long size = size(video);
+            if (delete(video)) {
+                keptVideos.remove(video);
+                total -= size;
+                logger.info("Evicted video {} to stay under video.maxDirMb", video.getFileName());
+            }
+        }
+    }
+
+    private static boolean delete(Path video) {
+        try {
+            return Files.deleteIfExists(video);
+        } catch (IOException e) {
+            logger.debug("Failed to delete video {}: {}", video, e.getMessage());
+            return false;
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void drain() {
+        cleaner.shutdown();
+        try {
+            if (!cleaner.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Video cleanup did not finish within 30 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
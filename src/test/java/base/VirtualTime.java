@@ -0,0 +1,70 @@
+package base;
+
+import com.microsoft.playwright.Page;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@code @virtualTime} scenario on Playwright's fake clock, installed before the first
+ * navigation so every timer of the app is controlled by it. Time still flows normally, but
+ * {@link #advance} fires the timers of the given period at once instead of waiting for them.
+ * <p>
+ * The advanced time is reported per scenario and logged for the run at shutdown. It is not a saving:
+ * no scenario of this suite waited on an app timer before, so none became faster. The only user is
+ * the toast dismissal check in {@code home.feature}, which would otherwise need the app's 4 s timeout.
+ */
+public final class VirtualTime {
+    private static final Logger logger = LogManager.getLogger(VirtualTime.class);
+    private static final String TAG = "@virtualTime";
+    private static final AtomicLong runScenarios = new AtomicLong();
+    private static final AtomicLong runAdvancedMillis = new AtomicLong();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(VirtualTime::logSummary, "virtual-time-summary"));
+    }
+
+    private final Page page;
+    private long advancedMillis;
+
+    private VirtualTime(Page page) {
+        this.page = page;
+    }
+
+    /**
+     * Installs the fake clock when the scenario is tagged {@code @virtualTime}, or returns {@code null}.
+     */
+    static VirtualTime attach(Page page, Collection<String> tags) {
+        if (!tags.contains(TAG)) {
+            return null;
+        }
+        page.clock().install();
+        runScenarios.incrementAndGet();
+        logger.info("Running on virtual time");
+        return new VirtualTime(page);
+    }
+
+    /**
+     * Moves the page's clock forward by {@code millis}, firing every timer due in that period.
+     */
+    public void advance(long millis) {
+        long start = System.nanoTime();
+        page.clock().runFor(millis);
+        advancedMillis += millis;
+        runAdvancedMillis.addAndGet(millis);
+        logger.debug("Advanced virtual time by {} ms in {} ms", millis, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public long getAdvancedMillis() {
+        return advancedMillis;
+    }
+
+    private static void logSummary() {
+        if (runAdvancedMillis.get() == 0) {
+            return;
+        }
+        logger.info("Virtual time: {} scenario(s) advanced {} ms", runScenarios.get(), runAdvancedMillis.get());
+    }
+}
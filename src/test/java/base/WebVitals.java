@@ -0,0 +1,307 @@
+package base;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Front-end performance metrics of a page: Navigation Timing (TTFB, DOMContentLoaded, load), first
+ * and largest contentful paint, cumulative layout shift and long tasks with their total blocking
+ * time.
+ * <p>
+ * An init script ({@code perf/web-vitals.js}) installed on every context records the
+ * {@code PerformanceObserver} entries from the start of each document; {@link #capture(Page, String)}
+ * reads them after a navigation. Values are as of the capture, so LCP and TBT cover what happened
+ * until the page object considered the page loaded. LCP and long tasks are only reported by Chromium.
+ * <p>
+ * Captures are kept for the running scenario and, per page name and performance profile, as a bounded
+ * sample for the run. At shutdown the run's p75 per page is written to {@code web-vitals.json} in the
+ * report directory together with the previous run's values, and pages whose LCP p75 grew by more
+ * than 20% are logged.
+ */
+public final class WebVitals {
+    private static final Logger logger = LogManager.getLogger(WebVitals.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final String SCRIPT_RESOURCE = "perf/web-vitals.js";
+    private static final double REGRESSION_THRESHOLD = 1.2;
+    private static final ThreadLocal<List<Snapshot>> scenarioCaptures = ThreadLocal.withInitial(ArrayList::new);
+    private static final int RESERVOIR_SIZE = 1000;
+    private static final Map<String, Reservoir> runCaptures = new ConcurrentHashMap<>();
+    private static volatile String script;
+    private static volatile boolean installed;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(WebVitals::writeRunSummary, "web-vitals-summary"));
+    }
+
+    private WebVitals() {
+    }
+
+    static void install(BrowserContext context) {
+        context.addInitScript(script());
+        installed = true;
+    }
+
+    /**
+     * Reads the page's metrics and records them under {@code pageName}. Returns {@code null} when
+     * collection is disabled ({@code perf.webVitals=false}).
+     */
+    public static Snapshot capture(Page page, String pageName) {
+        if (!installed) {
+            return null;
+        }
+        Object result = page.evaluate("() => window.__webVitals ? window.__webVitals() : null");
+        if (!(result instanceof Map)) {
+            return null;
+        }
+        Snapshot snapshot = new Snapshot(pageName, PerformanceProfile.current().getName(), (Map<?, ?>) result);
+        scenarioCaptures.get().add(snapshot);
+        // Loads under different throttling profiles are not comparable, so they are summarised separately
+        String summaryKey = snapshot.profile.equals(PerformanceProfile.NONE.getName())
+                ? pageName : pageName + " [" + snapshot.profile + "]";
+        runCaptures.computeIfAbsent(summaryKey, ignored -> new Reservoir()).add(snapshot);
+        logger.info("Web vitals of {}: {}", pageName, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * The calling thread's most recent capture in the running scenario, or {@code null}.
+     */
+    public static Snapshot latest() {
+        List<Snapshot> captures = scenarioCaptures.get();
+        return captures.isEmpty() ? null : captures.get(captures.size() - 1);
+    }
+
+    /**
+     * Returns and clears the captures of the calling thread's scenario.
+     */
+    public static List<Snapshot> takeScenarioCaptures() {
+        List<Snapshot> captures = new ArrayList<>(scenarioCaptures.get());
+        scenarioCaptures.remove();
+        return captures;
+    }
+
+    private static String script() {
+        if (script == null) {
+            try (InputStream in = WebVitals.class.getClassLoader().getResourceAsStream(SCRIPT_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Unable to find " + SCRIPT_RESOURCE + " in classpath");
+                }
+                script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + SCRIPT_RESOURCE, e);
+            }
+        }
+        return script;
+    }
+
+    private static void writeRunSummary() {
+        if (runCaptures.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(new ConfigReader().getReportDir(), "web-vitals.json");
+        JsonObject previous = readPrevious(file);
+        JsonObject pages = new JsonObject();
+        for (Map.Entry<String, Reservoir> entry : new TreeMap<>(runCaptures).entrySet()) {
+            List<Snapshot> captures = entry.getValue().samples();
+            long loads = entry.getValue().seen();
+            JsonObject summary = new JsonObject();
+            summary.addProperty("captures", loads);
+            if (captures.size() < loads) {
+                summary.addProperty("sampled", captures.size());
+            }
+            summary.addProperty("ttfbP75", p75(captures, snapshot -> snapshot.ttfb));
+            summary.addProperty("fcpP75", p75(captures, snapshot -> snapshot.fcp));
+            summary.addProperty("lcpP75", p75(captures, snapshot -> snapshot.lcp));
+            summary.addProperty("clsP75", p75(captures, snapshot -> snapshot.cls));
+            summary.addProperty("tbtP75", p75(captures, snapshot -> snapshot.tbt));
+            JsonObject before = previous.has(entry.getKey()) ? previous.getAsJsonObject(entry.getKey()) : null;
+            if (before != null) {
+                summary.add("previous", before.deepCopy());
+                summary.getAsJsonObject("previous").remove("previous");
+            }
+            pages.add(entry.getKey(), summary);
+            logger.info("Web vitals p75 of {} over {} loads: TTFB {} ms, FCP {} ms, LCP {} ms, CLS {}, TBT {} ms{}",
+                    entry.getKey(), loads, summary.get("ttfbP75"), summary.get("fcpP75"),
+                    summary.get("lcpP75"), summary.get("clsP75"), summary.get("tbtP75"), trend(summary, before));
+        }
+        JsonObject root = new JsonObject();
+        root.add("pages", pages);
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                gson.toJson(root, writer);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write web vitals summary to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String trend(JsonObject summary, JsonObject before) {
+        if (before == null || !summary.has("lcpP75") || !before.has("lcpP75")
+                || summary.get("lcpP75").isJsonNull() || before.get("lcpP75").isJsonNull()) {
+            return "";
+        }
+        double now = summary.get("lcpP75").getAsDouble();
+        double was = before.get("lcpP75").getAsDouble();
+        String trend = String.format(Locale.ROOT, " (LCP was %.0f ms)", was);
+        if (was > 0 && now > was * REGRESSION_THRESHOLD) {
+            logger.warn("LCP p75 regressed from {} ms to {} ms", Math.round(was), Math.round(now));
+        }
+        return trend;
+    }
+
+    private static JsonObject readPrevious(Path file) {
+        if (!Files.exists(file)) {
+            return new JsonObject();
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonElement pages = JsonParser.parseReader(reader).getAsJsonObject().get("pages");
+            return pages != null && pages.isJsonObject() ? pages.getAsJsonObject() : new JsonObject();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Ignoring unreadable web vitals summary {}: {}", file, e.getMessage());
+            return new JsonObject();
+        }
+    }
+
+    private static Double p75(List<Snapshot> captures, Function<Snapshot, Double> metric) {
+        List<Double> values = captures.stream().map(metric).filter(Objects::nonNull).sorted().collect(Collectors.toList());
+        if (values.isEmpty()) {
+            return null;
+        }
+        double value = values.get(Math.max(0, (int) Math.ceil(0.75 * values.size()) - 1));
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * A uniform sample of at most {@value #RESERVOIR_SIZE} of a page's captures (reservoir sampling), so a
+     * long run such as a load test keeps a bounded amount of snapshots per page.
+     */
+    private static final class Reservoir {
+        private final List<Snapshot> samples = new ArrayList<>();
+        private long seen;
+
+        private synchronized void add(Snapshot snapshot) {
+            seen++;
+            if (samples.size() < RESERVOIR_SIZE) {
+                samples.add(snapshot);
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(seen);
+                if (slot < RESERVOIR_SIZE) {
+                    samples.set((int) slot, snapshot);
+                }
+            }
+        }
+
+        private synchronized List<Snapshot> samples() {
+            return new ArrayList<>(samples);
+        }
+
+        private synchronized long seen() {
+            return seen;
+        }
+    }
+
+    /**
+     * Metrics of one page load. Times are milliseconds since navigation start; {@code null} when the
+     * browser does not report the metric.
+     */
+    public static final class Snapshot {
+        private final String pageName;
+        private final String profile;
+        private final String url;
+        private final Double ttfb;
+        private final Double domContentLoaded;
+        private final Double load;
+        private final Double fcp;
+        private final Double lcp;
+        private final Double cls;
+        private final Double tbt;
+        private final int longTasks;
+
+        private Snapshot(String pageName, String profile, Map<?, ?> values) {
+            this.pageName = pageName;
+            this.profile = profile;
+            this.url = String.valueOf(values.get("url"));
+            this.ttfb = number(values.get("ttfb"));
+            this.domContentLoaded = number(values.get("domContentLoaded"));
+            this.load = number(values.get("load"));
+            this.fcp = number(values.get("fcp"));
+            this.lcp = number(values.get("lcp"));
+            this.cls = number(values.get("cls"));
+            this.tbt = number(values.get("tbt"));
+            Double tasks = number(values.get("longTasks"));
+            this.longTasks = tasks == null ? 0 : tasks.intValue();
+        }
+
+        private static Double number(Object value) {
+            return value instanceof Number ? ((Number) value).doubleValue() : null;
+        }
+
+        public String getPageName() {
+            return pageName;
+        }
+
+        public String getProfile() {
+            return profile;
+        }
+
+        public Double getLargestContentfulPaint() {
+            return lcp;
+        }
+
+        public Double getFirstContentfulPaint() {
+            return fcp;
+        }
+
+        public Double getCumulativeLayoutShift() {
+            return cls;
+        }
+
+        public Double getTotalBlockingTime() {
+            return tbt;
+        }
+
+        public JsonObject toJson() {
+            return gson.toJsonTree(this).getAsJsonObject();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "TTFB %s ms, DCL %s ms, load %s ms, FCP %s ms, LCP %s ms, CLS %s, TBT %s ms, %d long tasks",
+                    format(ttfb), format(domContentLoaded), format(load), format(fcp), format(lcp),
+                    cls == null ? "-" : String.format(Locale.ROOT, "%.3f", cls), format(tbt), longTasks);
+        }
+
+        private static String format(Double millis) {
+            return millis == null ? "-" : String.valueOf(Math.round(millis));
+        }
+    }
+}
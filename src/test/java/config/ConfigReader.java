@@ -2,7 +2,12 @@ package config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 public class ConfigReader {
     private static final String CONFIG_FILE = "/config.properties";
@@ -29,6 +34,7 @@ public class ConfigReader {
         String url = getProperty(envKey, null);
 
         if (url == null) {
+            requireLocalServerStarted();
             url = getProperty("baseUrl", "https://practicesoftwaretesting.com");
         }
 
@@ -36,7 +42,28 @@ public class ConfigReader {
     }
 
     public String getApiBaseUrl() {
-        return getProperty("api.baseUrl", "https://api.practicesoftwaretesting.com");
+        String url = getProperty("api.baseUrl." + getEnvironment(), null);
+        if (url == null) {
+            requireLocalServerStarted();
+            url = getProperty("api.baseUrl", "https://api.practicesoftwaretesting.com");
+        }
+        return url;
+    }
+
+    // The local stand-in publishes baseUrl.local and api.baseUrl.local once it is listening
+    private void requireLocalServerStarted() {
+        if (isLocalEnvironment()) {
+            throw new IllegalStateException("env=local but the local Toolshop stand-in is not running;"
+                    + " start it with LocalToolshopServer.startIfLocal(config) first");
+        }
+    }
+
+    public boolean isLocalEnvironment() {
+        return "local".equalsIgnoreCase(getEnvironment());
+    }
+
+    public long getLocalLatencyMillis() {
+        return Long.parseLong(getProperty("local.latencyMs", "0"));
     }
 
     public String getBrowserName() {
@@ -55,6 +82,22 @@ public class ConfigReader {
         return Integer.parseInt(getProperty("slowMo", "0"));
     }
 
+    public String getNetworkMode() {
+        return getProperty("network.mode", "live"); // record | replay | live
+    }
+
+    public String getNetworkHarDir() {
+        return getProperty("network.har.dir", "src/test/resources/har");
+    }
+
+    public boolean isNetworkReplayStrict() {
+        return Boolean.parseBoolean(getProperty("network.replay.strict", "true"));
+    }
+
+    public boolean isNetworkTimingSizes() {
+        return Boolean.parseBoolean(getProperty("network.timings.sizes", "false"));
+    }
+
     public String getScreenshotMode() {
         return getProperty("screenshot.mode", "always"); // always | onFailure | never
     }
@@ -63,30 +106,251 @@ public class ConfigReader {
         return Boolean.parseBoolean(getProperty("screenshot.fullPage", "true"));
     }
 
+    public String getScreenshotFormat() {
+        return getProperty("screenshot.format", "png"); // png | jpeg
+    }
+
+    public int getScreenshotQuality() {
+        return Integer.parseInt(getProperty("screenshot.quality", "80"));
+    }
+
+    public String getScreenshotClip() {
+        return getProperty("screenshot.clip", null); // fullPage | viewport | element
+    }
+
+    public String getScreenshotSelector() {
+        return getProperty("screenshot.selector", null);
+    }
+
+    public boolean isScreenshotDedup() {
+        return Boolean.parseBoolean(getProperty("screenshot.dedup", "true"));
+    }
+
+    public int getArtifactQueueSize() {
+        return Integer.parseInt(getProperty("artifacts.queueSize", "16"));
+    }
+
+    public boolean isExtentReportEnabled() {
+        return Boolean.parseBoolean(getProperty("report.extent.enabled", "true"));
+    }
+
+    public int getExtentFlushEveryScenarios() {
+        return Integer.parseInt(getProperty("extent.flush.everyScenarios", "10"));
+    }
+
+    public long getExtentFlushIntervalMillis() {
+        return Long.parseLong(getProperty("extent.flush.intervalMs", "30000"));
+    }
+
+    public boolean isCucumberHtmlReportEnabled() {
+        return Boolean.parseBoolean(getProperty("report.cucumber.html", "true"));
+    }
+
+    public String getNdjsonEventsFile() {
+        return getReportPath("report.ndjson.file", "cucumber-events.ndjson");
+    }
+
     public boolean isVideoEnabled() {
         return Boolean.parseBoolean(getProperty("video.enabled", "false"));
     }
 
     public String getVideoDir() {
-        return getProperty("video.dir", "reports/videos");
+        return getReportPath("video.dir", "videos");
+    }
+
+    public int getVideoWidth() {
+        return Integer.parseInt(getProperty("video.width", "800"));
+    }
+
+    public int getVideoHeight() {
+        return Integer.parseInt(getProperty("video.height", "450"));
+    }
+
+    public boolean isVideoKeepPassed() {
+        return Boolean.parseBoolean(getProperty("video.keepPassed", "false"));
+    }
+
+    public long getVideoMaxDirMb() {
+        return Long.parseLong(getProperty("video.maxDirMb", "500"));
     }
 
     public boolean isTraceEnabled() {
         return Boolean.parseBoolean(getProperty("trace.enabled", "false"));
     }
 
+    public String getTraceMode() {
+        // trace.enabled=true predates trace.mode and keeps meaning "trace every scenario"
+        return getProperty("trace.mode", isTraceEnabled() ? "on" : "off"); // off | on | retain-on-failure
+    }
+
     public String getTraceDir() {
-        return getProperty("trace.dir", "reports/traces");
+        return getReportPath("trace.dir", "traces");
     }
 
     public int getParallelThreads() {
         return Integer.parseInt(getProperty("parallel.threads", "1"));
     }
 
+    public int getShardIndex() {
+        return Integer.parseInt(getProperty("shard.index", "0"));
+    }
+
+    public int getShardTotal() {
+        return Integer.parseInt(getProperty("shard.total", "1"));
+    }
+
+    public String getShardTimingsFile() {
+        return getProperty("shard.timings.file", "reports/scenario-timings.json");
+    }
+
+    public long getShardDefaultStepMillis() {
+        return Long.parseLong(getProperty("shard.defaultStepMs", "2000"));
+    }
+
+    public String getTagFilter() {
+        String tagFilter = getProperty("cucumber.filter.tags", null);
+        // Fixed @perf budgets only hold against the local stand-in; elsewhere they run when selected
+        if (tagFilter == null && !"local".equalsIgnoreCase(getEnvironment())) {
+            return "not @perf";
+        }
+        return tagFilter;
+    }
+
     public int getRetryFailedCount() {
         return Integer.parseInt(getProperty("retry.failed.count", "0"));
     }
 
+    public String getRetryRerunFile() {
+        return getReportPath("retry.rerun.file", "rerun.txt");
+    }
+
+    public String getPerfProfile() {
+        return getProperty("perf.profile", "none"); // none | fast3g | slow4g | lowEndMobile
+    }
+
+    public boolean isWebVitalsEnabled() {
+        return Boolean.parseBoolean(getProperty("perf.webVitals", "true"));
+    }
+
+    public boolean isMemoryMonitorEnabled() {
+        return Boolean.parseBoolean(getProperty("perf.memory.enabled", "false"));
+    }
+
+    public int getMemoryMinSamples() {
+        return Integer.parseInt(getProperty("perf.memory.minSamples", "4"));
+    }
+
+    public double getMemoryMaxHeapSlopeKb() {
+        return Double.parseDouble(getProperty("perf.memory.maxHeapSlopeKb", "512"));
+    }
+
+    public double getMemoryMaxNodeSlope() {
+        return Double.parseDouble(getProperty("perf.memory.maxNodeSlope", "200"));
+    }
+
+    public boolean isProtocolStatsEnabled() {
+        return Boolean.parseBoolean(getProperty("perf.protocolStats", "false"));
+    }
+
+    public int getLoadVirtualUsers() {
+        return Integer.parseInt(getProperty("load.virtualUsers", "4"));
+    }
+
+    public int getLoadRampUpSeconds() {
+        return Integer.parseInt(getProperty("load.rampUpSeconds", "30"));
+    }
+
+    public int getLoadDurationSeconds() {
+        return Integer.parseInt(getProperty("load.durationSeconds", "300"));
+    }
+
+    public String getLoadTags() {
+        return getProperty("load.tags", "@smoke");
+    }
+
+    public List<String> getLoadFeatures() {
+        String features = getProperty("load.features",
+                "src/test/resources/features/home.feature,src/test/resources/features/contact-form.feature");
+        List<String> paths = new ArrayList<>();
+        for (String feature : features.split(",")) {
+            if (!feature.isBlank()) {
+                paths.add(feature.trim());
+            }
+        }
+        return paths;
+    }
+
+    public long getLoadThinkTimeMillis() {
+        return Long.parseLong(getProperty("load.thinkTimeMs", "0"));
+    }
+
+    public int getLoadIntervalSeconds() {
+        return Integer.parseInt(getProperty("load.intervalSeconds", "10"));
+    }
+
+    public String getStepSlaMode() {
+        return getProperty("step.slaMode", "warn"); // warn | fail
+    }
+
+    /**
+     * Directory shared by all shards; the merged report is written here.
+     */
+    public String getBaseReportDir() {
+        return getProperty("report.dir", "reports");
+    }
+
+    /**
+     * Directory this JVM writes its reports to. Sharded runs each get their own {@code shard-<index>}
+     * below {@code report.dir} so they cannot overwrite each other.
+     */
+    public String getReportDir() {
+        String partition = getReportPartition();
+        return partition == null ? getBaseReportDir() : getBaseReportDir() + "/" + partition;
+    }
+
+    public boolean isReportPartitioned() {
+        return getReportPartition() != null;
+    }
+
+    /**
+     * Where this run writes its scenario timings: the shared {@code shard.timings.file} when the run is not
+     * split, otherwise a file in the partition's report directory that the report merger folds in.
+     */
+    public String getTimingsOutputFile() {
+        return isReportPartitioned() ? getReportDir() + "/scenario-timings.json" : getShardTimingsFile();
+    }
+
+    private String getReportPartition() {
+        return getShardTotal() > 1 ? "shard-" + getShardIndex() : null;
+    }
+
+    /**
+     * Resolves a report file setting against {@link #getReportDir()} unless it is an absolute path.
+     */
+    private String getReportPath(String key, String defaultValue) {
+        String value = getProperty(key, defaultValue);
+        return Paths.get(value).isAbsolute() ? value : getReportDir() + "/" + value;
+    }
+
+    /**
+     * All settings whose key starts with {@code prefix}, keyed by the rest of the key. System properties
+     * override the file.
+     */
+    public Map<String, String> getPropertiesWithPrefix(String prefix) {
+        Map<String, String> matching = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix) && !properties.getProperty(key).isBlank()) {
+                matching.put(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(prefix) && !System.getProperty(key).isBlank()) {
+                matching.put(key.substring(prefix.length()), System.getProperty(key));
+            }
+        }
+        return matching;
+    }
+
     private String getProperty(String key, String defaultValue) {
         String systemProperty = System.getProperty(key);
         if (systemProperty != null && !systemProperty.isBlank()) {
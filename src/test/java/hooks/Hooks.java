@@ -1,12 +1,20 @@
 package hooks;
 
+import base.EndpointTimings;
+import base.MemoryMonitor;
+import base.PerformanceProfile;
 import base.PlaywrightFactory;
+import base.VirtualTime;
+import base.WebVitals;
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.JsonFormatter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
+import com.google.gson.JsonArray;
 import com.microsoft.playwright.Page;
 import config.ConfigReader;
 import io.cucumber.java.After;
@@ -15,29 +23,76 @@ import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import plugins.StepTimingPlugin;
+import reporting.ArtifactStore;
+import reporting.ExtentFlushScheduler;
+import reporting.ScreenshotCapture;
+import runners.SuiteLauncher;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Base64;
+import java.util.List;
 
 public class Hooks {
     private static final Logger logger = LogManager.getLogger(Hooks.class);
+    private static final ConfigReader configReader = new ConfigReader();
     private static ExtentReports extentReports;
+    private static ExtentFlushScheduler extentFlushScheduler;
     private static final ThreadLocal<ExtentTest> extentTest = new ThreadLocal<>();
     private static final ThreadLocal<Page> page = new ThreadLocal<>();
+    private static final ThreadLocal<EndpointTimings> endpointTimings = new ThreadLocal<>();
+    private static final ThreadLocal<VirtualTime> virtualTime = new ThreadLocal<>();
+    private final ScreenshotCapture screenshotCapture = new ScreenshotCapture(configReader);
     private PlaywrightFactory playwrightFactory;
-    private static ConfigReader configReader;
+    private String artifactDir;
+    private int stepIndex;
 
     @Before
     public void setUp(Scenario scenario) {
         logger.info("========== TEST START: {} ==========", scenario.getName());
         logger.info("Scenario Tags: {}", scenario.getSourceTagNames());
 
-        if (extentReports == null) {
-            configReader = new ConfigReader();
+        playwrightFactory = new PlaywrightFactory();
+        artifactDir = ArtifactStore.scenarioDirName(scenario.getName(), scenario.getId());
+
+        logger.info("Opening browser context: {}", configReader.getBrowserName());
+        Page currentPage = playwrightFactory.initPage(scenario);
+        page.set(currentPage);
+        endpointTimings.set(playwrightFactory.getEndpointTimings());
+        virtualTime.set(playwrightFactory.getVirtualTime());
+        logger.info("Browser context opened successfully");
+        // Created after initPage, since initPage starts the local stand-in the report's base URL may point at
+        ExtentReports reports = initExtentReports();
+
+        int attempt = SuiteLauncher.getAttempt();
+        ExtentTest test;
+        if (attempt > 1) {
+            test = reports.createTest(scenario.getName() + " [retry " + (attempt - 1) + "]");
+            test.assignCategory("Retry");
+        } else {
+            test = reports.createTest(scenario.getName());
+        }
+        PerformanceProfile profile = playwrightFactory.getPerformanceProfile();
+        if (profile != PerformanceProfile.NONE) {
+            test.assignCategory("Profile: " + profile.getName());
+            test.info("Measured under performance profile " + profile.getName());
+            scenario.log("Performance profile: " + profile.getName());
+        }
+        extentTest.set(test);
+    }
+
+    private static synchronized ExtentReports initExtentReports() {
+        if (extentReports == null && !configReader.isExtentReportEnabled()) {
+            // No reporters and no flush scheduler: tests are created for the hooks and dropped after each scenario
+            logger.info("Extent Reports disabled");
+            extentReports = new ExtentReports();
+        } else if (extentReports == null) {
             logger.info("Initializing Extent Reports");
-            Path reportPath = Paths.get("reports", "extent-report.html");
-            ExtentSparkReporter spark = new ExtentSparkReporter(reportPath.toString());
+            Path reportDir = Paths.get(configReader.getReportDir());
+            Path reportPath = reportDir.resolve("extent-report.html");
+            // Spark renders into a temporary file that the flush scheduler renames over the report
+            Path renderedReportPath = reportDir.resolve("extent-report.tmp.html");
+            ExtentSparkReporter spark = new ExtentSparkReporter(renderedReportPath.toString());
 
             spark.config().setTheme(Theme.STANDARD);
             spark.config().setDocumentTitle("Playwright Automation Report");
@@ -45,32 +100,38 @@ public class Hooks {
             spark.config().setTimeStampFormat("dd-MM-yyyy HH:mm:ss");
 
             extentReports = new ExtentReports();
-            extentReports.attachReporter(spark);
+            // The JSON archive is what ReportMerger combines across shards
+            extentReports.attachReporter(spark, new JsonFormatter(reportDir.resolve("extent.json").toString()));
             extentReports.setSystemInfo("Environment", configReader.getEnvironment());
             extentReports.setSystemInfo("Browser", configReader.getBrowserName());
             extentReports.setSystemInfo("Base URL", configReader.getBaseUrl());
             extentReports.setSystemInfo("Framework", "Playwright + Cucumber");
             extentReports.setSystemInfo("Screenshot Mode", configReader.getScreenshotMode());
+            extentReports.setSystemInfo("Performance Profile", configReader.getPerfProfile());
             extentReports.setSystemInfo("Author", "Automation Team");
+            extentFlushScheduler = new ExtentFlushScheduler(extentReports, renderedReportPath, reportPath,
+                    configReader.getExtentFlushEveryScenarios(), configReader.getExtentFlushIntervalMillis());
             logger.info("Extent Reports initialized successfully");
         }
-
-        playwrightFactory = new PlaywrightFactory();
-        if (configReader == null) {
-            configReader = new ConfigReader();
-        }
-
-        logger.info("Launching browser: {}", configReader.getBrowserName());
-        Page currentPage = playwrightFactory.initPage();
-        page.set(currentPage);
-        logger.info("Browser launched successfully");
-
-        ExtentTest test = extentReports.createTest(scenario.getName());
-        extentTest.set(test);
+        return extentReports;
     }
 
     @AfterStep
     public void afterStep(Scenario scenario) {
+        stepIndex++;
+        String budgetFailure = checkStepBudget();
+        MemoryMonitor memoryMonitor = playwrightFactory == null ? null : playwrightFactory.getMemoryMonitor();
+        if (memoryMonitor != null) {
+            memoryMonitor.sample(String.format("step-%02d", stepIndex));
+        }
+        // The step over its budget is captured like a failed one before it fails the scenario
+        captureStep(scenario, scenario.isFailed() || budgetFailure != null);
+        if (budgetFailure != null) {
+            throw new AssertionError(budgetFailure);
+        }
+    }
+
+    private void captureStep(Scenario scenario, boolean stepFailed) {
         String screenshotMode = configReader.getScreenshotMode();
         logger.debug("Screenshot mode: {}, Step status: {}", screenshotMode, scenario.getStatus());
 
@@ -79,7 +140,7 @@ public class Hooks {
             return;
         }
 
-        if ("onFailure".equalsIgnoreCase(screenshotMode) && !scenario.isFailed()) {
+        if ("onFailure".equalsIgnoreCase(screenshotMode) && !stepFailed) {
             logger.debug("Screenshot capture skipped (mode: onFailure, step passed)");
             return;
         }
@@ -87,20 +148,16 @@ public class Hooks {
         Page currentPage = page.get();
         if (currentPage != null) {
             try {
-                Page.ScreenshotOptions screenshotOptions = new Page.ScreenshotOptions()
-                        .setFullPage(configReader.isScreenshotFullPage())
-                        .setTimeout(30000);
-                byte[] screenshot = currentPage.screenshot(screenshotOptions);
-                String base64Screenshot = Base64.getEncoder().encodeToString(screenshot);
-                logger.info("Screenshot captured successfully (size: {} bytes)", screenshot.length);
+                String screenshotPath = screenshotCapture.capture(currentPage, artifactDir, String.format("step-%02d", stepIndex));
+                logger.info("Screenshot captured successfully: {}", screenshotPath);
 
-                if (scenario.isFailed()) {
+                if (stepFailed) {
                     logger.error("Step FAILED");
                     extentTest.get().fail("Step failed",
-                            MediaEntityBuilder.createScreenCaptureFromBase64String(base64Screenshot).build());
+                            MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
                 } else {
                     extentTest.get().pass("Step passed",
-                            MediaEntityBuilder.createScreenCaptureFromBase64String(base64Screenshot).build());
+                            MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
                 }
             } catch (Exception e) {
                 logger.error("Failed to capture screenshot", e);
@@ -109,6 +166,49 @@ public class Hooks {
         }
     }
 
+    /**
+     * Reports a step over its budget and returns the failure message when {@code step.slaMode=fail},
+     * otherwise {@code null}.
+     */
+    private String checkStepBudget() {
+        StepTimingPlugin.StepTiming step = StepTimingPlugin.takeLastStep();
+        if (step == null || !step.isOverBudget()) {
+            return null;
+        }
+        String message = String.format("Step '%s' took %d ms, over its %d ms budget",
+                step.getText(), step.getDurationMillis(), step.getBudgetMillis());
+        logger.warn(message);
+        if ("fail".equalsIgnoreCase(configReader.getStepSlaMode())) {
+            extentTest.get().fail(message);
+            return message;
+        }
+        extentTest.get().warning(message);
+        return null;
+    }
+
+    /**
+     * Runs before {@link #tearDown(Scenario)} (higher order runs first) so a leak fails the scenario
+     * before its screenshots, trace and video are kept or discarded.
+     */
+    @After(order = 20000)
+    public void checkMemoryGrowth(Scenario scenario) {
+        MemoryMonitor memoryMonitor = playwrightFactory == null ? null : playwrightFactory.getMemoryMonitor();
+        if (memoryMonitor == null || memoryMonitor.isEmpty()) {
+            return;
+        }
+        extentTest.get().info(String.format("Memory growth per step: JS heap %.1f KB, DOM %.1f nodes",
+                memoryMonitor.getHeapSlopeKb(), memoryMonitor.getNodeSlope()));
+        extentTest.get().info(MarkupHelper.createTable(memoryMonitor.toTable()));
+        scenario.attach(memoryMonitor.toCsv(), "text/csv", "Memory samples");
+
+        String leak = memoryMonitor.leakDescription();
+        if (leak != null) {
+            logger.error("Memory leak suspected in {}: {}", scenario.getName(), leak);
+            extentTest.get().fail("Memory leak suspected: " + leak);
+            throw new AssertionError("Memory leak suspected: " + leak);
+        }
+    }
+
     @After
     public void tearDown(Scenario scenario) {
         Page currentPage = page.get();
@@ -117,21 +217,18 @@ public class Hooks {
 
         if (currentPage != null) {
             try {
-                Page.ScreenshotOptions screenshotOptions = new Page.ScreenshotOptions()
-                        .setTimeout(30000); // 30 seconds timeout
-                byte[] screenshot = currentPage.screenshot(screenshotOptions);
-                String base64Screenshot = Base64.getEncoder().encodeToString(screenshot);
+                String screenshotPath = screenshotCapture.capture(currentPage, artifactDir, "final");
 
                 if (scenario.isFailed()) {
                     logger.error("SCENARIO FAILED: {}", scenario.getName());
                     extentTest.get().fail("Scenario failed: " + scenario.getName(),
-                            MediaEntityBuilder.createScreenCaptureFromBase64String(base64Screenshot).build());
+                            MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
 
-                    scenario.attach(screenshot, "image/png", "Failed Screenshot");
+                    scenario.attach(screenshotPath, "text/uri-list", "Failed Screenshot");
                 } else {
                     logger.info("SCENARIO PASSED: {}", scenario.getName());
                     extentTest.get().pass("Scenario passed: " + scenario.getName(),
-                            MediaEntityBuilder.createScreenCaptureFromBase64String(base64Screenshot).build());
+                            MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
                 }
             } catch (Exception e) {
                 logger.error("Failed to capture final screenshot", e);
@@ -139,17 +236,69 @@ public class Hooks {
             }
         }
 
-        extentReports.flush();
-        logger.info("Extent Reports flushed");
+        if (SuiteLauncher.getAttempt() > 1 && !scenario.isFailed()) {
+            logger.warn("SCENARIO PASSED ONLY ON RETRY: {}", scenario.getName());
+            extentTest.get().assignCategory("Flaky");
+            extentTest.get().log(Status.WARNING, "Passed only on retry " + (SuiteLauncher.getAttempt() - 1));
+        }
 
-        if (playwrightFactory != null) {
-            logger.info("Closing browser");
-            playwrightFactory.close();
+        EndpointTimings timings = endpointTimings.get();
+        if (timings != null && !timings.isEmpty()) {
+            extentTest.get().info(MarkupHelper.createTable(timings.toTable()));
+        }
+        attachWebVitals(scenario);
+        VirtualTime clock = virtualTime.get();
+        if (clock != null && clock.getAdvancedMillis() > 0) {
+            extentTest.get().info("Virtual time advanced " + clock.getAdvancedMillis() + " ms");
+            scenario.log("Virtual time advanced " + clock.getAdvancedMillis() + " ms");
+        }
+
+        try {
+            if (playwrightFactory != null) {
+                logger.info("Closing browser context");
+                playwrightFactory.close();
+                attachRecording(scenario, playwrightFactory.getTraceFile(), "Playwright Trace",
+                        " (open with <code>npx playwright show-trace</code> or trace.playwright.dev)");
+                attachRecording(scenario, playwrightFactory.getVideoFile(), "Video", "");
+            }
+        } finally {
+            if (extentFlushScheduler != null) {
+                extentFlushScheduler.scenarioFinished();
+            } else if (extentTest.get() != null) {
+                extentReports.removeTest(extentTest.get());
+            }
+            page.remove();
+            endpointTimings.remove();
+            virtualTime.remove();
+            extentTest.remove();
         }
 
         logger.info("========== TEST END: {} - {} ==========", scenario.getName(), scenario.getStatus());
     }
 
+    private void attachWebVitals(Scenario scenario) {
+        List<WebVitals.Snapshot> captures = WebVitals.takeScenarioCaptures();
+        if (captures.isEmpty()) {
+            return;
+        }
+        JsonArray json = new JsonArray();
+        for (WebVitals.Snapshot capture : captures) {
+            json.add(capture.toJson());
+            extentTest.get().info("Web vitals of " + capture.getPageName() + ": " + capture);
+        }
+        scenario.attach(json.toString(), "application/json", "Web vitals");
+    }
+
+    private void attachRecording(Scenario scenario, Path file, String name, String hint) {
+        if (file == null) {
+            return;
+        }
+        String link = Paths.get(configReader.getReportDir()).toAbsolutePath()
+                .relativize(file.toAbsolutePath()).toString().replace('\\', '/');
+        extentTest.get().info(name + ": <a href='" + link + "' target='_blank'>" + file.getFileName() + "</a>" + hint);
+        scenario.attach(link, "text/uri-list", name);
+    }
+
     public static Page getPage() {
         return page.get();
     }
@@ -158,6 +307,14 @@ public class Hooks {
         return new ConfigReader();
     }
 
+    public static EndpointTimings getEndpointTimings() {
+        return endpointTimings.get();
+    }
+
+    public static VirtualTime getVirtualTime() {
+        return virtualTime.get();
+    }
+
     public static ExtentTest getExtentTest() {
         return extentTest.get();
     }
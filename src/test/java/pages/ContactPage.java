@@ -1,13 +1,21 @@
 package pages;
 
+import base.NetworkTracker;
+import base.WebVitals;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.options.AriaRole;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 public class ContactPage {
+    private static final Pattern MESSAGES = Pattern.compile("/messages");
+
     private final Page page;
 
     private Locator firstNameField() {
@@ -48,6 +56,7 @@ public class ContactPage {
 
     public void navigateToContactPage(String baseUrl) {
         page.navigate(baseUrl + "/contact");
+        WebVitals.capture(page, "contact");
     }
 
     public void setFirstName(String firstName) {
@@ -84,12 +93,10 @@ public class ContactPage {
     }
 
     public void submitFormAndWaitForSuccess() {
-        page.waitForResponse(
-            response -> response.url().contains("/messages") && response.status() == 200,
-            () -> {
-                sendButton().click();
-            }
-        );
+        NetworkTracker network = NetworkTracker.of(page);
+        long mark = network.mark();
+        sendButton().click();
+        network.awaitResponse(MESSAGES, mark);
     }
 
     public void clearField(String fieldName) {
@@ -107,12 +114,12 @@ public class ContactPage {
 
     public boolean areAllFormFieldsVisible() {
         try {
-            return firstNameField().isVisible() &&
-                   lastNameField().isVisible() &&
-                   emailField().isVisible() &&
-                   subjectField().isVisible() &&
-                   messageField().isVisible() &&
-                   sendButton().isVisible();
+            Map<String, DomQuery.FieldMatch> fields = new LinkedHashMap<>();
+            for (String label : List.of("First name", "Last name", "Email", "Subject", "Message")) {
+                fields.put(label, DomQuery.FieldMatch.LABEL);
+            }
+            fields.put("Send", DomQuery.FieldMatch.TEXT);
+            return !DomQuery.fieldVisibility(page, fields).containsValue(false);
         } catch (Exception e) {
             return false;
         }
@@ -120,12 +127,23 @@ public class ContactPage {
 
     public boolean isFieldVisible(String fieldName) {
         try {
-            return page.getByLabel(fieldName).isVisible() || page.getByText(fieldName).isVisible();
+            return getFieldVisibility(List.of(fieldName)).get(fieldName);
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Visibility per field name, a field counting as found by its label or its text.
+     */
+    public Map<String, Boolean> getFieldVisibility(List<String> fieldNames) {
+        Map<String, DomQuery.FieldMatch> fields = new LinkedHashMap<>();
+        for (String fieldName : fieldNames) {
+            fields.put(fieldName, DomQuery.FieldMatch.LABEL_OR_TEXT);
+        }
+        return DomQuery.fieldVisibility(page, fields);
+    }
+
     public String getAlertMessage() {
         alertMessage().waitFor();
         return alertMessage().textContent();
@@ -0,0 +1,75 @@
+package pages;
+
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads several elements in one driver round trip. Looping over {@code nth(i)} costs one round trip
+ * per call and grows with the catalog; these queries run a single script over all matches instead.
+ * The scripts live next to {@code perf/web-vitals.js} under {@code pages/} on the test classpath.
+ * Visibility follows Playwright's rule: a non-empty bounding box and no {@code visibility: hidden}.
+ */
+final class DomQuery {
+    private static final String PRODUCT_CARDS = "pages/product-cards.js";
+    private static final String FIELD_VISIBILITY = "pages/field-visibility.js";
+    private static final Map<String, String> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * How a field is found: like {@code getByLabel}, like {@code getByText}, or either.
+     */
+    enum FieldMatch {
+        LABEL, TEXT, LABEL_OR_TEXT
+    }
+
+    private DomQuery() {
+    }
+
+    static List<ProductCard> productCards(Locator productNames) {
+        List<ProductCard> cards = new ArrayList<>();
+        for (Object item : (List<?>) productNames.evaluateAll(script(PRODUCT_CARDS))) {
+            Map<?, ?> card = (Map<?, ?>) item;
+            String price = String.valueOf(card.get("price")).replaceAll("[^0-9.]", "");
+            cards.add(new ProductCard(String.valueOf(card.get("name")), price.isEmpty() ? Double.NaN : Double.parseDouble(price),
+                    Boolean.TRUE.equals(card.get("visible"))));
+        }
+        return cards;
+    }
+
+    /**
+     * Visibility per field name, each field looked up the way its {@link FieldMatch} says.
+     */
+    static Map<String, Boolean> fieldVisibility(Page page, Map<String, FieldMatch> fields) {
+        List<List<String>> queries = new ArrayList<>();
+        fields.forEach((name, match) -> queries.add(List.of(name, match.name())));
+        List<?> visible = (List<?>) page.evaluate(script(FIELD_VISIBILITY), queries);
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        int i = 0;
+        for (String name : fields.keySet()) {
+            result.put(name, Boolean.TRUE.equals(visible.get(i++)));
+        }
+        return result;
+    }
+
+    private static String script(String resource) {
+        return scripts.computeIfAbsent(resource, name -> {
+            try (InputStream in = DomQuery.class.getClassLoader().getResourceAsStream(name)) {
+                if (in == null) {
+                    throw new IllegalStateException("Unable to find " + name + " in classpath");
+                }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + name, e);
+            }
+        });
+    }
+}
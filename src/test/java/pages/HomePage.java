@@ -1,9 +1,18 @@
 package pages;
 
+import base.NetworkTracker;
+import base.WebVitals;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 
+import java.util.List;
+import java.util.regex.Pattern;
+
 public class HomePage {
+    private static final Pattern PRODUCT_IMAGE = Pattern.compile("/img/products/");
+    private static final Pattern PRODUCT_SEARCH = Pattern.compile("products\\?");
+    private static final Pattern RELATED_PRODUCTS = Pattern.compile("/related");
+
     private final Page page;
 
     private Locator toolCards() {
@@ -36,41 +45,34 @@ public class HomePage {
     }
 
     public void navigateToHomePage(String baseUrl) {
-        page.waitForResponse(
-            response -> response.url().contains("/img/products/") && response.status() == 200,
-            () -> {
-                page.navigate(baseUrl);
-            }
-        );
+        NetworkTracker network = NetworkTracker.of(page);
+        long mark = network.mark();
+        page.navigate(baseUrl);
+        network.awaitResponse(PRODUCT_IMAGE, mark);
+        WebVitals.capture(page, "home");
         //page.waitForLoadState(com.microsoft.playwright.options.LoadState.NETWORKIDLE);
     }
 
     public void filterByCategory(String categoryName) {
-        page.waitForResponse(
-            response -> response.url().contains("products?") && response.status() == 200,
-            () -> {
-                page.locator("label:has-text('" + categoryName + "')").click();
-            }
-        );
+        NetworkTracker network = NetworkTracker.of(page);
+        long mark = network.mark();
+        page.locator("label:has-text('" + categoryName + "')").click();
+        network.awaitResponse(PRODUCT_SEARCH, mark);
     }
 
 
     public void clickFirstProduct() {
-        page.waitForResponse(
-            response -> response.url().contains("/related") && response.status() == 200,
-            () -> {
-                productCards().first().click();
-            }
-        );
+        NetworkTracker network = NetworkTracker.of(page);
+        long mark = network.mark();
+        productCards().first().click();
+        network.awaitResponse(RELATED_PRODUCTS, mark);
     }
 
     public void sortBy(String sortOption) {
-        page.waitForResponse(
-            response -> response.url().contains("products?") && response.status() == 200,
-            () -> {
-                sortDropdown().selectOption(sortOption);
-            }
-        );
+        NetworkTracker network = NetworkTracker.of(page);
+        long mark = network.mark();
+        sortDropdown().selectOption(sortOption);
+        network.awaitResponse(PRODUCT_SEARCH, mark);
     }
 
     public void clickNextPage() {
@@ -81,12 +83,10 @@ public class HomePage {
                 boolean isDisabled = page.locator("li.disabled a[aria-label*='Next']").count() > 0;
 
                 if (!isDisabled) {
-                    page.waitForResponse(
-                        response -> response.url().contains("products") && response.status() == 200,
-                        () -> {
-                            nextButton.click();
-                        }
-                    );
+                    NetworkTracker network = NetworkTracker.of(page);
+                    long mark = network.mark();
+                    nextButton.click();
+                    network.awaitResponse(PRODUCT_SEARCH, mark);
                 } else {
                     throw new RuntimeException("Next page button is disabled");
                 }
@@ -104,16 +104,12 @@ public class HomePage {
     }
 
     public boolean areAllToolsVisible() {
-        int count = toolCards().count();
-        if (count == 0) {
-            return false;
-        }
-        for (int i = 0; i < count; i++) {
-            if (!toolCards().nth(i).isVisible()) {
-                return false;
-            }
-        }
-        return true;
+        List<ProductCard> cards = getProductCards();
+        return !cards.isEmpty() && cards.stream().allMatch(ProductCard::isVisible);
+    }
+
+    public List<ProductCard> getProductCards() {
+        return DomQuery.productCards(toolCards());
     }
 
     public int getToolsCount() {
@@ -135,12 +131,12 @@ public class HomePage {
     }
 
     public boolean areProductsSortedByPriceAscending() {
-        int count = productPrices().count();
-        if (count < 2) return true;
+        // All prices in one round trip instead of count() plus textContent() per price
+        List<String> prices = productPrices().allTextContents();
+        if (prices.size() < 2) return true;
 
         double previousPrice = 0;
-        for (int i = 0; i < count; i++) {
-            String priceText = productPrices().nth(i).textContent();
+        for (String priceText : prices) {
             double currentPrice = Double.parseDouble(priceText.replaceAll("[^0-9.]", ""));
             if (currentPrice < previousPrice) {
                 return false;
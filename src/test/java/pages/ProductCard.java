@@ -0,0 +1,33 @@
+package pages;
+
+/**
+ * A product card of the catalog as read by {@link HomePage#getProductCards()}.
+ */
+public final class ProductCard {
+    private final String name;
+    private final double price;
+    private final boolean visible;
+
+    ProductCard(String name, double price, boolean visible) {
+        this.name = name;
+        this.price = price;
+        this.visible = visible;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + price + (visible ? "" : ", hidden") + ")";
+    }
+}
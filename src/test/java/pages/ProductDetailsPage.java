@@ -1,9 +1,14 @@
 package pages;
 
+import base.NetworkTracker;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 
+import java.util.regex.Pattern;
+
 public class ProductDetailsPage {
+    private static final Pattern ADD_TO_CART = Pattern.compile("/cart|add-to-cart");
+
     private final Page page;
 
     private Locator productName() {
@@ -34,12 +39,10 @@ public class ProductDetailsPage {
 
 
     public void clickAddToCartButton() {
-        page.waitForResponse(
-            response -> (response.url().contains("/cart") || response.url().contains("add-to-cart")) && response.status() == 200,
-            () -> {
-                addToCartButton().click();
-            }
-        );
+        NetworkTracker network = NetworkTracker.of(page);
+        long mark = network.mark();
+        addToCartButton().click();
+        network.awaitResponse(ADD_TO_CART, mark);
     }
 
     public String getProductName() {
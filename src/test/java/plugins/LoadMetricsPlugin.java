@@ -0,0 +1,116 @@
+package plugins;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the numbers of a load test: one completion record per scenario iteration and the
+ * latency of every passed step, per step text. {@code LoadTestRunner} starts one Cucumber run per
+ * iteration and virtual user, so the data is kept for the whole JVM rather than per plugin instance.
+ */
+public class LoadMetricsPlugin implements ConcurrentEventListener {
+    private static final ConcurrentLinkedQueue<Completion> completions = new ConcurrentLinkedQueue<>();
+    private static final Map<String, Samples> stepLatencies = new ConcurrentHashMap<>();
+    // Scenarios run on the virtual user's thread, so this is the time its current iteration spent in them
+    private static final ThreadLocal<long[]> scenarioMillis = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        // Failed and skipped steps end early and would pull the percentiles down
+        if (event.getTestStep() instanceof PickleStepTestStep && event.getResult().getStatus() == Status.PASSED) {
+            String text = ((PickleStepTestStep) event.getTestStep()).getStep().getText();
+            stepLatencies.computeIfAbsent(text, ignored -> new Samples()).add(event.getResult().getDuration().toMillis());
+        }
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        Status status = event.getResult().getStatus();
+        scenarioMillis.get()[0] += event.getResult().getDuration().toMillis();
+        completions.add(new Completion(event.getInstant().toEpochMilli(), event.getResult().getDuration().toMillis(),
+                status != Status.PASSED && status != Status.SKIPPED));
+    }
+
+    /**
+     * Returns and resets the time the calling thread spent in scenarios, hooks included.
+     */
+    public static long takeScenarioMillis() {
+        long millis = scenarioMillis.get()[0];
+        scenarioMillis.remove();
+        return millis;
+    }
+
+    public static List<Completion> getCompletions() {
+        return new ArrayList<>(completions);
+    }
+
+    /**
+     * Sorted step latencies in milliseconds, per step text.
+     */
+    public static Map<String, long[]> getStepLatencies() {
+        Map<String, long[]> latencies = new TreeMap<>();
+        stepLatencies.forEach((text, samples) -> latencies.put(text, samples.sorted()));
+        return latencies;
+    }
+
+    /**
+     * A finished scenario iteration.
+     */
+    public static final class Completion {
+        private final long finishedAt;
+        private final long durationMillis;
+        private final boolean failed;
+
+        private Completion(long finishedAt, long durationMillis, boolean failed) {
+            this.finishedAt = finishedAt;
+            this.durationMillis = durationMillis;
+            this.failed = failed;
+        }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+
+    private static final class Samples {
+        private long[] values = new long[64];
+        private int size;
+
+        private synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private synchronized long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package plugins;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EmbedEvent;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Result;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.WriteEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+/**
+ * Streams the run to an NDJSON file, one JSON object per line, as events happen:
+ * {@code testRunStarted}, {@code testCaseStarted}, {@code testStepFinished}, {@code attachment},
+ * {@code testCaseFinished} and {@code testRunFinished}. Nothing is kept in memory, so the file can
+ * be as large as the run needs; {@code reporting.NdjsonReportBuilder} turns it into an HTML report.
+ * <p>
+ * Usage: {@code --plugin plugins.NdjsonEventSink:reports/cucumber-events.ndjson}
+ */
+public class NdjsonEventSink implements ConcurrentEventListener {
+    private static final Logger logger = LogManager.getLogger(NdjsonEventSink.class);
+
+    private final Path file;
+    private final Writer writer;
+    private volatile long runStartedMillis;
+
+    public NdjsonEventSink(File file) {
+        this.file = file.toPath();
+        try {
+            if (this.file.getParent() != null) {
+                Files.createDirectories(this.file.getParent());
+            }
+            this.writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open NDJSON event file " + file, e);
+        }
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestRunStarted.class, this::onTestRunStarted);
+        publisher.registerHandlerFor(TestCaseStarted.class, this::onTestCaseStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(EmbedEvent.class, this::onEmbed);
+        publisher.registerHandlerFor(WriteEvent.class, this::onWrite);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::onTestRunFinished);
+    }
+
+    private void onTestRunStarted(TestRunStarted event) {
+        runStartedMillis = event.getInstant().toEpochMilli();
+        JsonObject record = record("testRunStarted", event.getInstant().toEpochMilli());
+        write(record, false);
+    }
+
+    private void onTestCaseStarted(TestCaseStarted event) {
+        TestCase testCase = event.getTestCase();
+        JsonObject record = record("testCaseStarted", event.getInstant().toEpochMilli());
+        record.addProperty("testCaseId", testCase.getId().toString());
+        record.addProperty("uri", ScenarioTimings.featurePath(testCase.getUri()));
+        record.addProperty("line", testCase.getLocation().getLine());
+        record.addProperty("name", testCase.getName());
+        JsonArray tags = new JsonArray();
+        testCase.getTags().forEach(tags::add);
+        record.add("tags", tags);
+        write(record, false);
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        JsonObject record = record("testStepFinished", event.getInstant().toEpochMilli());
+        record.addProperty("testCaseId", event.getTestCase().getId().toString());
+        if (event.getTestStep() instanceof PickleStepTestStep) {
+            PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+            record.addProperty("keyword", step.getStep().getKeyword());
+            record.addProperty("text", step.getStep().getText());
+            record.addProperty("line", step.getStep().getLine());
+        } else if (event.getTestStep() instanceof HookTestStep) {
+            HookTestStep hook = (HookTestStep) event.getTestStep();
+            record.addProperty("hook", hook.getHookType().name());
+            record.addProperty("text", hook.getCodeLocation());
+        }
+        addResult(record, event.getResult());
+        write(record, false);
+    }
+
+    private void onEmbed(EmbedEvent event) {
+        JsonObject record = record("attachment", event.getInstant().toEpochMilli());
+        record.addProperty("testCaseId", event.getTestCase().getId().toString());
+        record.addProperty("name", event.getName());
+        record.addProperty("mediaType", event.getMediaType());
+        byte[] data = event.getData();
+        record.addProperty("size", data.length);
+        if (isText(event.getMediaType())) {
+            record.addProperty("text", new String(data, StandardCharsets.UTF_8));
+        } else {
+            record.addProperty("base64", Base64.getEncoder().encodeToString(data));
+        }
+        write(record, false);
+    }
+
+    private void onWrite(WriteEvent event) {
+        JsonObject record = record("attachment", event.getInstant().toEpochMilli());
+        record.addProperty("testCaseId", event.getTestCase().getId().toString());
+        record.addProperty("mediaType", "text/plain");
+        record.addProperty("text", event.getText());
+        write(record, false);
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        JsonObject record = record("testCaseFinished", event.getInstant().toEpochMilli());
+        record.addProperty("testCaseId", event.getTestCase().getId().toString());
+        addResult(record, event.getResult());
+        // Flushed per scenario so an aborted run still leaves every finished scenario on disk
+        write(record, true);
+    }
+
+    private void onTestRunFinished(TestRunFinished event) {
+        JsonObject record = record("testRunFinished", event.getInstant().toEpochMilli());
+        record.addProperty("durationMs", event.getInstant().toEpochMilli() - runStartedMillis);
+        addResult(record, event.getResult());
+        write(record, true);
+        try {
+            synchronized (writer) {
+                writer.close();
+            }
+            logger.info("Cucumber events written to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to close NDJSON event file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static JsonObject record(String type, long timestamp) {
+        JsonObject record = new JsonObject();
+        record.addProperty("type", type);
+        record.addProperty("timestamp", timestamp);
+        return record;
+    }
+
+    private static void addResult(JsonObject record, Result result) {
+        record.addProperty("status", result.getStatus().name());
+        record.addProperty("durationMs", result.getDuration().toMillis());
+        if (result.getError() != null) {
+            record.addProperty("error", String.valueOf(result.getError()));
+        }
+    }
+
+    private static boolean isText(String mediaType) {
+        return mediaType != null && (mediaType.startsWith("text/") || mediaType.contains("json") || mediaType.contains("xml"));
+    }
+
+    private void write(JsonObject record, boolean flush) {
+        synchronized (writer) {
+            try {
+                writer.write(record.toString());
+                writer.write('\n');
+                if (flush) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to write {} event to {}: {}", record.get("type").getAsString(), file, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package plugins;
+
+import base.ProtocolStats;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+
+/**
+ * Tells {@link ProtocolStats} which step the current thread is running, so driver round trips can be
+ * attributed to it. Cucumber publishes step events on the thread that runs the step.
+ */
+public class ProtocolStatsPlugin implements ConcurrentEventListener {
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepStarted.class, event -> {
+            if (event.getTestStep() instanceof PickleStepTestStep) {
+                ProtocolStats.setStep(((PickleStepTestStep) event.getTestStep()).getStep().getText());
+            }
+        });
+        publisher.registerHandlerFor(TestStepFinished.class, event -> ProtocolStats.setStep(null));
+    }
+}
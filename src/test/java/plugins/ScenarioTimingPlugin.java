@@ -0,0 +1,80 @@
+package plugins;
+
+import config.ConfigReader;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the run's wall-clock time against the summed scenario durations, which is what the
+ * same scenarios would have taken one after another, and logs the resulting parallel speedup.
+ * Per-scenario durations are merged into the {@code shard.timings.file} after every run, or into
+ * the partition's own timings file when the run is sharded.
+ */
+public class ScenarioTimingPlugin implements ConcurrentEventListener {
+    private static final Logger logger = LogManager.getLogger(ScenarioTimingPlugin.class);
+
+    private final Map<String, TestCaseFinished> finishedScenarios = new ConcurrentHashMap<>();
+    private final AtomicLong scenarioNanos = new AtomicLong();
+    private final AtomicInteger scenarioCount = new AtomicInteger();
+    private volatile Instant runStarted;
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestRunStarted.class, event -> runStarted = event.getInstant());
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::onTestRunFinished);
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        scenarioNanos.addAndGet(event.getResult().getDuration().toNanos());
+        scenarioCount.incrementAndGet();
+        TestCase testCase = event.getTestCase();
+        finishedScenarios.put(ScenarioTimings.key(ScenarioTimings.featurePath(testCase.getUri()), testCase.getLocation().getLine()), event);
+    }
+
+    private void onTestRunFinished(TestRunFinished event) {
+        if (runStarted == null || scenarioCount.get() == 0) {
+            return;
+        }
+        Duration wallClock = Duration.between(runStarted, event.getInstant());
+        Duration serial = Duration.ofNanos(scenarioNanos.get());
+        double speedup = wallClock.isZero() ? 1.0 : (double) serial.toMillis() / Math.max(1, wallClock.toMillis());
+        logger.info("Ran {} scenarios in {} ms wall-clock, {} ms summed scenario time, speedup vs serial: {}x",
+                scenarioCount.get(), wallClock.toMillis(), serial.toMillis(), String.format("%.2f", speedup));
+        saveTimings();
+    }
+
+    private void saveTimings() {
+        Path timingsFile = Paths.get(new ConfigReader().getTimingsOutputFile());
+        ScenarioTimings timings = ScenarioTimings.load(timingsFile);
+        finishedScenarios.forEach((key, finished) -> {
+            long steps = finished.getTestCase().getTestSteps().stream()
+                    .filter(step -> step instanceof PickleStepTestStep)
+                    .count();
+            timings.record(key, finished.getResult().getDuration().toMillis(), (int) steps);
+        });
+        try {
+            timings.save(timingsFile);
+            logger.info("Scenario timings written to {}", timingsFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write scenario timings to {}: {}", timingsFile, e.getMessage());
+        }
+    }
+}
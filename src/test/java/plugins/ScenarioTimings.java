@@ -0,0 +1,129 @@
+package plugins;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recorded per-scenario durations, keyed by feature path (relative to the project directory) and
+ * the scenario's line, the example row's line for outlines, so every example has its own entry. Written after every run by {@link ScenarioTimingPlugin} and read by the sharder to
+ * balance shards.
+ */
+public final class ScenarioTimings {
+    private static final Logger logger = LogManager.getLogger(ScenarioTimings.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    // Weight of the latest run when blending it into the recorded duration
+    private static final double LATEST_RUN_WEIGHT = 0.5;
+
+    private final Map<String, Entry> entries;
+
+    private ScenarioTimings(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static ScenarioTimings load(Path file) {
+        Map<String, Entry> entries = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return new ScenarioTimings(entries);
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject scenarios = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonObject("scenarios");
+            if (scenarios != null) {
+                scenarios.entrySet().forEach(scenario ->
+                        entries.put(scenario.getKey(), gson.fromJson(scenario.getValue(), Entry.class)));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable scenario timings file {}: {}", file, e.getMessage());
+        }
+        return new ScenarioTimings(entries);
+    }
+
+    public static String key(String featurePath, int line) {
+        return featurePath.replace('\\', '/') + ":" + line;
+    }
+
+    /**
+     * Turns a feature URI reported by Cucumber into the project-relative path used in keys.
+     */
+    public static String featurePath(URI uri) {
+        if (!"file".equals(uri.getScheme())) {
+            return uri.getSchemeSpecificPart();
+        }
+        Path path = Paths.get(uri);
+        Path projectDir = Paths.get("").toAbsolutePath();
+        return (path.startsWith(projectDir) ? projectDir.relativize(path) : path).toString().replace('\\', '/');
+    }
+
+    public Long durationMillis(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.durationMs;
+    }
+
+    /**
+     * Average duration of one step over every recorded scenario, or {@code null} with no history.
+     */
+    public Double millisPerStep() {
+        long totalMillis = 0;
+        long totalSteps = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.steps > 0) {
+                totalMillis += entry.durationMs;
+                totalSteps += entry.steps;
+            }
+        }
+        return totalSteps == 0 ? null : (double) totalMillis / totalSteps;
+    }
+
+    public void record(String key, long durationMillis, int steps) {
+        Entry previous = entries.get(key);
+        Entry entry = new Entry();
+        entry.durationMs = previous == null ? durationMillis
+                : Math.round(previous.durationMs * (1 - LATEST_RUN_WEIGHT) + durationMillis * LATEST_RUN_WEIGHT);
+        entry.steps = steps;
+        entries.put(key, entry);
+    }
+
+    /**
+     * Blends every scenario recorded in {@code latest} into these timings.
+     */
+    public void recordAll(ScenarioTimings latest) {
+        latest.entries.forEach((key, entry) -> record(key, entry.durationMs, entry.steps));
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public void save(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        JsonObject root = new JsonObject();
+        root.add("scenarios", gson.toJsonTree(entries));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            gson.toJson(root, writer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static final class Entry {
+        private long durationMs;
+        private int steps;
+    }
+}
@@ -0,0 +1,287 @@
+package plugins;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import config.ConfigReader;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Times every step and hook and keeps one latency histogram per step text. At the end of the run
+ * p50/p95/p99/max per step are written to {@code step-timings.json} and, in Prometheus text format,
+ * {@code step-timings.prom} in the report directory. Steps whose p95 grew by more than 20% since the
+ * previous export are logged as regressions.
+ * <p>
+ * Budgets are read from {@code step.sla.<regex>=<ms>} properties, matched case-insensitively
+ * against the step text. Spaces in the property key must be escaped:
+ * {@code step.sla.user\ navigates\ to\ home\ page=3000}. The last step's timing is kept per thread
+ * so an {@code @AfterStep} hook can warn or fail on a budget overrun ({@code step.slaMode}).
+ * Histograms are kept for the whole JVM, so retries add to the first attempt's numbers.
+ */
+public class StepTimingPlugin implements ConcurrentEventListener {
+    private static final Logger logger = LogManager.getLogger(StepTimingPlugin.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final String SLA_PREFIX = "step.sla.";
+    private static final double REGRESSION_THRESHOLD = 1.2;
+
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final AtomicLong budgetOverruns = new AtomicLong();
+    private static final ThreadLocal<StepTiming> lastStep = new ThreadLocal<>();
+    // Read before the first export of this JVM so retries compare against the previous run, not the first attempt
+    private static Map<String, Long> previousP95;
+
+    private final ConfigReader config = new ConfigReader();
+    private final Map<Pattern, Long> budgets = new HashMap<>();
+
+    public StepTimingPlugin() {
+        config.getPropertiesWithPrefix(SLA_PREFIX).forEach((pattern, millis) ->
+                budgets.put(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE), Long.parseLong(millis.trim())));
+        synchronized (StepTimingPlugin.class) {
+            if (previousP95 == null) {
+                previousP95 = readPreviousP95(Paths.get(config.getReportDir(), "step-timings.json"));
+            }
+        }
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> export());
+    }
+
+    /**
+     * Returns and clears the calling thread's last finished step.
+     */
+    public static StepTiming takeLastStep() {
+        StepTiming step = lastStep.get();
+        lastStep.remove();
+        return step;
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        long millis = event.getResult().getDuration().toMillis();
+        if (event.getTestStep() instanceof PickleStepTestStep) {
+            String text = ((PickleStepTestStep) event.getTestStep()).getStep().getText();
+            histograms.computeIfAbsent(text, ignored -> new Histogram("step")).add(millis);
+            Long budget = budgetFor(text);
+            StepTiming timing = new StepTiming(text, millis, budget);
+            if (timing.isOverBudget()) {
+                budgetOverruns.incrementAndGet();
+            }
+            lastStep.set(timing);
+        } else if (event.getTestStep() instanceof HookTestStep) {
+            HookTestStep hook = (HookTestStep) event.getTestStep();
+            String text = hook.getHookType().name().toLowerCase(Locale.ROOT) + " " + hook.getCodeLocation();
+            histograms.computeIfAbsent(text, ignored -> new Histogram("hook")).add(millis);
+        }
+    }
+
+    private Long budgetFor(String text) {
+        Long budget = null;
+        for (Map.Entry<Pattern, Long> entry : budgets.entrySet()) {
+            // The tightest of several matching budgets applies
+            if (entry.getKey().matcher(text).find() && (budget == null || entry.getValue() < budget)) {
+                budget = entry.getValue();
+            }
+        }
+        return budget;
+    }
+
+    private void export() {
+        if (histograms.isEmpty()) {
+            return;
+        }
+        Path reportDir = Paths.get(config.getReportDir());
+        Path jsonFile = reportDir.resolve("step-timings.json");
+
+        JsonArray steps = new JsonArray();
+        StringBuilder prometheus = new StringBuilder()
+                .append("# HELP cucumber_step_duration_seconds Duration of Cucumber steps and hooks\n")
+                .append("# TYPE cucumber_step_duration_seconds summary\n");
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            String text = entry.getKey();
+            Histogram histogram = entry.getValue();
+            long[] sorted = histogram.sortedValues();
+            long p50 = percentile(sorted, 50);
+            long p95 = percentile(sorted, 95);
+            long p99 = percentile(sorted, 99);
+            long max = sorted[sorted.length - 1];
+            long sum = Arrays.stream(sorted).sum();
+
+            JsonObject step = new JsonObject();
+            step.addProperty("text", text);
+            step.addProperty("type", histogram.type);
+            step.addProperty("count", sorted.length);
+            step.addProperty("p50Ms", p50);
+            step.addProperty("p95Ms", p95);
+            step.addProperty("p99Ms", p99);
+            step.addProperty("maxMs", max);
+            Long budget = "step".equals(histogram.type) ? budgetFor(text) : null;
+            if (budget != null) {
+                step.addProperty("budgetMs", budget);
+            }
+            Long previous = previousP95.get(text);
+            if (previous != null) {
+                step.addProperty("previousP95Ms", previous);
+                if (previous > 0 && p95 > previous * REGRESSION_THRESHOLD) {
+                    regressions.add(text + " (p95 " + previous + " -> " + p95 + " ms)");
+                }
+            }
+            steps.add(step);
+
+            String labels = "step=\"" + escapeLabel(text) + "\",type=\"" + histogram.type + "\"";
+            prometheus.append(metric(labels + ",quantile=\"0.5\"", p50))
+                    .append(metric(labels + ",quantile=\"0.95\"", p95))
+                    .append(metric(labels + ",quantile=\"0.99\"", p99))
+                    .append(metric(labels + ",quantile=\"1\"", max))
+                    .append("cucumber_step_duration_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(sum)).append('\n')
+                    .append("cucumber_step_duration_seconds_count{").append(labels).append("} ")
+                    .append(sorted.length).append('\n');
+        }
+        prometheus.append("# HELP cucumber_step_budget_overruns_total Steps that took longer than their step.sla budget\n")
+                .append("# TYPE cucumber_step_budget_overruns_total counter\n")
+                .append("cucumber_step_budget_overruns_total ").append(budgetOverruns.get()).append('\n');
+
+        JsonObject root = new JsonObject();
+        root.addProperty("budgetOverruns", budgetOverruns.get());
+        root.add("steps", steps);
+        try {
+            write(jsonFile, gson.toJson(root));
+            write(reportDir.resolve("step-timings.prom"), prometheus.toString());
+            logger.info("Step timings of {} steps and hooks written to {}", histograms.size(), jsonFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write step timings to {}: {}", reportDir, e.getMessage());
+        }
+        if (!regressions.isEmpty()) {
+            logger.warn("{} step(s) got slower since the previous run: {}", regressions.size(), regressions);
+        }
+    }
+
+    private static Map<String, Long> readPreviousP95(Path jsonFile) {
+        Map<String, Long> previous = new HashMap<>();
+        if (!Files.exists(jsonFile)) {
+            return previous;
+        }
+        try (Reader reader = Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8)) {
+            for (JsonElement step : JsonParser.parseReader(reader).getAsJsonObject().getAsJsonArray("steps")) {
+                JsonObject object = step.getAsJsonObject();
+                previous.put(object.get("text").getAsString(), object.get("p95Ms").getAsLong());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Ignoring unreadable step timings {}: {}", jsonFile, e.getMessage());
+        }
+        return previous;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        // Nearest rank
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String metric(String labels, long millis) {
+        return "cucumber_step_duration_seconds{" + labels + "} " + seconds(millis) + "\n";
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Duration of a finished step and the {@code step.sla} budget that applied to it, if any.
+     */
+    public static final class StepTiming {
+        private final String text;
+        private final long durationMillis;
+        private final Long budgetMillis;
+
+        private StepTiming(String text, long durationMillis, Long budgetMillis) {
+            this.text = text;
+            this.durationMillis = durationMillis;
+            this.budgetMillis = budgetMillis;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public Long getBudgetMillis() {
+            return budgetMillis;
+        }
+
+        public boolean isOverBudget() {
+            return budgetMillis != null && durationMillis > budgetMillis;
+        }
+    }
+
+    private static final class Histogram {
+        private final String type;
+        private long[] values = new long[16];
+        private int size;
+
+        private Histogram(String type) {
+            this.type = type;
+        }
+
+        private synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private synchronized long[] sortedValues() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package reporting;
+
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes report artifacts such as screenshots to {@code <report dir>/artifacts/<scenario>/<file>} on a
+ * background writer thread and hands back the path relative to the report directory, which is all
+ * the Extent and Cucumber reports keep.
+ * <p>
+ * Pending writes are held in a bounded queue ({@code artifacts.queueSize}); when it is full the
+ * caller blocks until the writer catches up, so heap usage stays bounded however many steps run.
+ * A shutdown hook drains the queue before the JVM exits.
+ */
+public final class ArtifactStore {
+    private static final Logger logger = LogManager.getLogger(ArtifactStore.class);
+    private static final String ARTIFACTS_DIR = "artifacts";
+    private static final ArtifactStore instance = createInstance();
+
+    private final Path reportDir;
+    private final ThreadPoolExecutor writer;
+
+    private ArtifactStore(Path reportDir, int queueSize) {
+        this.reportDir = reportDir;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "artifact-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Artifact store is shut down");
+                    }
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for the artifact writer", e);
+                    }
+                });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "artifact-store-shutdown"));
+    }
+
+    private static ArtifactStore createInstance() {
+        ConfigReader config = new ConfigReader();
+        return new ArtifactStore(Paths.get(config.getReportDir()), config.getArtifactQueueSize());
+    }
+
+    public static ArtifactStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Directory name for a scenario's artifacts: a readable slug of its name plus a short part of
+     * its unique id, so scenarios sharing a name never overwrite each other.
+     */
+    public static String scenarioDirName(String scenarioName, String scenarioId) {
+        String slug = scenarioName.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+        if (slug.length() > 60) {
+            slug = slug.substring(0, 60);
+        }
+        String id = scenarioId.replaceAll("[^A-Za-z0-9]", "");
+        return slug + "-" + id.substring(0, Math.min(8, id.length()));
+    }
+
+    /**
+     * Queues the content for writing and returns its path relative to the report directory.
+     */
+    public String write(String scenarioDir, String fileName, byte[] content) {
+        String relativePath = ARTIFACTS_DIR + "/" + scenarioDir + "/" + fileName;
+        Path target = reportDir.resolve(relativePath);
+        writer.execute(() -> {
+            try {
+                Files.createDirectories(target.getParent());
+                Files.write(target, content);
+            } catch (IOException e) {
+                logger.error("Failed to write artifact {}", target, e);
+            }
+        });
+        return relativePath;
+    }
+
+    private void drain() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Artifact writer did not finish within 30 seconds, {} artifacts not written",
+                        writer.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
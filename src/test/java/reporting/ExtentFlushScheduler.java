@@ -0,0 +1,108 @@
+package reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces ExtentReports flushes. Every flush re-renders the whole report, so instead of flushing
+ * after each scenario the report is written on a background thread every {@code everyScenarios}
+ * finished scenarios or every {@code intervalMillis}, whichever comes first, and once more from a
+ * shutdown hook.
+ * <p>
+ * The reporter renders into a temporary file next to the report, which is then atomically renamed
+ * over it, so a crash mid-flush never leaves a truncated report behind.
+ */
+public final class ExtentFlushScheduler {
+    private static final Logger logger = LogManager.getLogger(ExtentFlushScheduler.class);
+
+    private final ExtentReports extentReports;
+    private final Path renderedReport;
+    private final Path report;
+    private final int everyScenarios;
+    private final ScheduledExecutorService executor;
+    private final AtomicInteger pendingScenarios = new AtomicInteger();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final Object flushLock = new Object();
+
+    /**
+     * @param renderedReport the file the Spark reporter writes to; renamed to {@code report} after each flush
+     */
+    public ExtentFlushScheduler(ExtentReports extentReports, Path renderedReport, Path report,
+                                int everyScenarios, long intervalMillis) {
+        this.extentReports = extentReports;
+        this.renderedReport = renderedReport;
+        this.report = report;
+        this.everyScenarios = Math.max(1, everyScenarios);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "extent-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (intervalMillis > 0) {
+            executor.scheduleWithFixedDelay(this::flushIfPending, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "extent-flush-shutdown"));
+    }
+
+    public void scenarioFinished() {
+        if (pendingScenarios.incrementAndGet() >= everyScenarios && flushQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushQueued.set(false);
+                flushIfPending();
+            });
+        }
+    }
+
+    private void flushIfPending() {
+        if (pendingScenarios.get() > 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Renders the report now on the calling thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            int flushed = pendingScenarios.getAndSet(0);
+            long start = System.currentTimeMillis();
+            try {
+                extentReports.flush();
+                publish();
+                logger.info("Extent report flushed ({} new scenarios) in {} ms", flushed, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                // Scenarios may still be logging while the report renders; try again on the next flush
+                pendingScenarios.addAndGet(flushed);
+                logger.warn("Failed to flush Extent report, will retry: {}", e.toString());
+            }
+        }
+    }
+
+    private void publish() throws IOException {
+        if (!Files.exists(renderedReport)) {
+            return;
+        }
+        try {
+            Files.move(renderedReport, report, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(renderedReport, report, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void shutdown() {
+        executor.shutdownNow();
+        flush();
+    }
+}
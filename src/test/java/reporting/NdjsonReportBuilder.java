@@ -0,0 +1,281 @@
+package reporting;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds a paginated HTML report from one or more NDJSON files written by {@code plugins.NdjsonEventSink}.
+ * <pre>
+ * java -cp ... reporting.NdjsonReportBuilder [--out reports/ndjson-report] [--page-size 200] events.ndjson...
+ * </pre>
+ * The files are read line by line; only the scenarios still in progress and the current page are
+ * held in memory. Every page of scenarios is written as its own {@code pages/page-N.js}, which the
+ * report loads through a script tag when the page is opened, so the report opens instantly from
+ * the file system however many scenarios it contains.
+ */
+public final class NdjsonReportBuilder {
+    private static final Logger logger = LogManager.getLogger(NdjsonReportBuilder.class);
+    private static final Gson gson = new Gson();
+    private static final int MAX_TEXT_ATTACHMENT = 4000;
+    private static final int MAX_LISTED_FAILURES = 500;
+
+    private final Path outputDir;
+    private final int pageSize;
+    private final Path linkBaseDir;
+    private final Map<String, JsonObject> openScenarios = new HashMap<>();
+    private final JsonArray currentPage = new JsonArray();
+    private final JsonArray pages = new JsonArray();
+    private final JsonArray failures = new JsonArray();
+    private final Map<String, Integer> totals = new TreeMap<>();
+    private long totalDurationMillis;
+    private int scenarioCount;
+
+    public NdjsonReportBuilder(Path outputDir, int pageSize) {
+        this(outputDir, pageSize, null);
+    }
+
+    /**
+     * Resolves attachment links against {@code linkBaseDir} instead of the directory of each event file;
+     * {@code null} keeps the latter.
+     */
+    public NdjsonReportBuilder(Path outputDir, int pageSize, Path linkBaseDir) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive, was " + pageSize);
+        }
+        this.outputDir = outputDir;
+        this.pageSize = pageSize;
+        this.linkBaseDir = linkBaseDir;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path outputDir = Paths.get("reports", "ndjson-report");
+        int pageSize = 200;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outputDir = Paths.get(args[++i]);
+            } else if ("--page-size".equals(args[i]) && i + 1 < args.length) {
+                pageSize = Integer.parseInt(args[++i]);
+            } else {
+                inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Usage: NdjsonReportBuilder [--out <dir>] [--page-size <n>] <events.ndjson>...");
+        }
+        Path index = new NdjsonReportBuilder(outputDir, pageSize).build(inputs);
+        logger.info("Report written to {}", index.toAbsolutePath());
+    }
+
+    /**
+     * Builds the report and returns the path of its {@code index.html}.
+     */
+    public Path build(List<Path> inputs) throws IOException {
+        Files.createDirectories(outputDir.resolve("pages"));
+        for (Path input : inputs) {
+            read(input);
+        }
+        if (!openScenarios.isEmpty()) {
+            logger.warn("{} scenario(s) never finished, the run was probably aborted", openScenarios.size());
+        }
+        writePage();
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("generated", System.currentTimeMillis());
+        summary.addProperty("scenarios", scenarioCount);
+        summary.addProperty("durationMs", totalDurationMillis);
+        summary.addProperty("pageSize", pageSize);
+        JsonObject statusTotals = new JsonObject();
+        totals.forEach(statusTotals::addProperty);
+        summary.add("totals", statusTotals);
+        summary.add("pages", pages);
+        summary.add("failures", failures);
+        writeScript(outputDir.resolve("index.js"), "window.reportIndex(" + gson.toJson(summary) + ");");
+        copyResource("ndjson-report/index.html", outputDir.resolve("index.html"));
+        logger.info("Built report of {} scenario(s) in {} page(s)", scenarioCount, pages.size());
+        return outputDir.resolve("index.html");
+    }
+
+    private void read(Path input) throws IOException {
+        // Attachment paths are relative to the directory the events were written in
+        Path baseDir = linkBaseDir != null ? linkBaseDir.toAbsolutePath() : input.toAbsolutePath().getParent();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonObject event;
+                try {
+                    event = JsonParser.parseString(line).getAsJsonObject();
+                } catch (RuntimeException e) {
+                    // A run killed mid-write leaves a partial last line behind
+                    logger.warn("Skipping unreadable line {} of {}: {}", lineNumber, input, e.getMessage());
+                    continue;
+                }
+                handle(event, input, baseDir);
+            }
+        }
+    }
+
+    private void handle(JsonObject event, Path input, Path baseDir) throws IOException {
+        String type = event.get("type").getAsString();
+        String testCaseId = event.has("testCaseId") ? event.get("testCaseId").getAsString() : null;
+        switch (type) {
+            case "testCaseStarted": {
+                JsonObject scenario = new JsonObject();
+                scenario.addProperty("name", event.get("name").getAsString());
+                scenario.addProperty("uri", event.get("uri").getAsString());
+                scenario.addProperty("line", event.get("line").getAsInt());
+                scenario.add("tags", event.get("tags"));
+                scenario.addProperty("source", String.valueOf(input.getFileName()));
+                scenario.addProperty("started", event.get("timestamp").getAsLong());
+                scenario.add("steps", new JsonArray());
+                scenario.add("attachments", new JsonArray());
+                openScenarios.put(testCaseId, scenario);
+                break;
+            }
+            case "testStepFinished": {
+                JsonObject scenario = openScenarios.get(testCaseId);
+                if (scenario == null) {
+                    break;
+                }
+                JsonObject step = new JsonObject();
+                copy(event, step, "keyword", "text", "hook", "status", "durationMs", "error");
+                // Passing hooks are noise in the report; only show the ones that did something wrong
+                if (!event.has("hook") || !"PASSED".equals(event.get("status").getAsString())) {
+                    scenario.getAsJsonArray("steps").add(step);
+                }
+                break;
+            }
+            case "attachment": {
+                JsonObject scenario = openScenarios.get(testCaseId);
+                if (scenario != null) {
+                    scenario.getAsJsonArray("attachments").add(attachment(event, baseDir));
+                }
+                break;
+            }
+            case "testCaseFinished": {
+                JsonObject scenario = openScenarios.remove(testCaseId);
+                if (scenario != null) {
+                    copy(event, scenario, "status", "durationMs", "error");
+                    finish(scenario);
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private JsonObject attachment(JsonObject event, Path baseDir) {
+        JsonObject attachment = new JsonObject();
+        copy(event, attachment, "name", "mediaType", "size");
+        String mediaType = event.has("mediaType") ? event.get("mediaType").getAsString() : "";
+        if ("text/uri-list".equals(mediaType) && event.has("text")) {
+            String target = event.get("text").getAsString().trim();
+            if (!target.contains("://")) {
+                target = outputDir.toAbsolutePath().relativize(baseDir.resolve(target)).toString().replace('\\', '/');
+            }
+            attachment.addProperty("link", target);
+        } else if (event.has("text")) {
+            String text = event.get("text").getAsString();
+            attachment.addProperty("text", text.length() > MAX_TEXT_ATTACHMENT
+                    ? text.substring(0, MAX_TEXT_ATTACHMENT) + "\n... (" + text.length() + " characters)"
+                    : text);
+        }
+        // Binary attachments are summarised by media type and size; inlining them would defeat the paging
+        return attachment;
+    }
+
+    private void finish(JsonObject scenario) throws IOException {
+        String status = scenario.get("status").getAsString();
+        totals.merge(status, 1, Integer::sum);
+        totalDurationMillis += scenario.get("durationMs").getAsLong();
+        scenarioCount++;
+        if (!"PASSED".equals(status) && !"SKIPPED".equals(status) && failures.size() < MAX_LISTED_FAILURES) {
+            JsonObject failure = new JsonObject();
+            failure.addProperty("page", pages.size());
+            failure.addProperty("index", currentPage.size());
+            failure.addProperty("name", scenario.get("name").getAsString());
+            failure.addProperty("status", status);
+            failures.add(failure);
+        }
+        currentPage.add(scenario);
+        if (currentPage.size() >= pageSize) {
+            writePage();
+        }
+    }
+
+    private void writePage() throws IOException {
+        if (currentPage.isEmpty()) {
+            return;
+        }
+        int number = pages.size();
+        JsonObject page = new JsonObject();
+        page.addProperty("file", "pages/page-" + number + ".js");
+        page.addProperty("count", currentPage.size());
+        Map<String, Integer> statuses = new TreeMap<>();
+        for (JsonElement scenario : currentPage) {
+            statuses.merge(scenario.getAsJsonObject().get("status").getAsString(), 1, Integer::sum);
+        }
+        JsonObject pageTotals = new JsonObject();
+        statuses.forEach(pageTotals::addProperty);
+        page.add("totals", pageTotals);
+        page.addProperty("first", currentPage.get(0).getAsJsonObject().get("name").getAsString());
+        pages.add(page);
+
+        writeScript(outputDir.resolve(page.get("file").getAsString()),
+                "window.reportPage(" + number + ", " + gson.toJson(currentPage) + ");");
+        while (!currentPage.isEmpty()) {
+            currentPage.remove(currentPage.size() - 1);
+        }
+    }
+
+    private static void copy(JsonObject from, JsonObject to, String... keys) {
+        for (String key : keys) {
+            if (from.has(key)) {
+                to.add(key, from.get(key));
+            }
+        }
+    }
+
+    private static void writeScript(Path file, String script) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(script);
+        }
+    }
+
+    private static void copyResource(String resource, Path target) throws IOException {
+        try (InputStream in = NdjsonReportBuilder.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new UncheckedIOException(new IOException("Report template not found on the classpath: " + resource));
+            }
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
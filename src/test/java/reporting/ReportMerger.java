@@ -0,0 +1,207 @@
+package reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.configuration.Theme;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import plugins.ScenarioTimings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Combines the report directories of sharded runs ({@code shard-*} below {@code report.dir}) into
+ * one report in {@code report.dir}:
+ * <ul>
+ *     <li>every partition's screenshots, traces and videos into {@code artifacts/}, {@code traces/} and
+ *     {@code videos/}, so the reports' relative links keep working</li>
+ *     <li>the Extent JSON archives into {@code extent-report.html}</li>
+ *     <li>the Cucumber NDJSON event files into the paged report in {@code ndjson-report/}</li>
+ *     <li>the scenario timings into {@code shard.timings.file}, for balancing the next split</li>
+ *     <li>the rerun files into one {@code retry.rerun.file}</li>
+ * </ul>
+ * <pre>
+ * java -cp ... reporting.ReportMerger [partition dir...]
+ * </pre>
+ */
+public final class ReportMerger {
+    private static final Logger logger = LogManager.getLogger(ReportMerger.class);
+
+    private final ConfigReader config;
+    private final Path outputDir;
+
+    public ReportMerger(ConfigReader config) {
+        this.config = config;
+        this.outputDir = Paths.get(config.getBaseReportDir());
+    }
+
+    public static void main(String[] args) throws IOException {
+        ReportMerger merger = new ReportMerger(new ConfigReader());
+        List<Path> partitions = new ArrayList<>();
+        for (String arg : args) {
+            partitions.add(Paths.get(arg));
+        }
+        merger.merge(partitions.isEmpty() ? merger.findPartitions() : partitions);
+    }
+
+    List<Path> findPartitions() throws IOException {
+        if (!Files.isDirectory(outputDir)) {
+            return List.of();
+        }
+        try (Stream<Path> children = Files.list(outputDir)) {
+            return children.filter(Files::isDirectory)
+                    .filter(dir -> dir.getFileName().toString().matches("shard-\\d+"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public void merge(List<Path> partitions) throws IOException {
+        if (partitions.isEmpty()) {
+            logger.warn("No shard report directories found in {}", outputDir);
+            return;
+        }
+        logger.info("Merging reports of {}", partitions);
+        Files.createDirectories(outputDir);
+        mergeRecordings(partitions);
+        mergeExtent(partitions);
+        mergeEvents(partitions);
+        mergeTimings(partitions);
+        mergeReruns(partitions);
+        for (Path partition : partitions) {
+            try (Stream<Path> files = Files.list(partition)) {
+                files.filter(file -> file.getFileName().toString().startsWith("cucumber-report"))
+                        .forEach(file -> logger.info("Cucumber HTML report of {}: {}", partition.getFileName(), file));
+            }
+        }
+    }
+
+    private void mergeExtent(List<Path> partitions) throws IOException {
+        ExtentSparkReporter spark = new ExtentSparkReporter(outputDir.resolve("extent-report.html").toString());
+        spark.config().setTheme(Theme.STANDARD);
+        spark.config().setDocumentTitle("Playwright Automation Report");
+        spark.config().setReportName("Test Execution Report - " + config.getEnvironment().toUpperCase()
+                + " (" + partitions.size() + " partitions)");
+        spark.config().setTimeStampFormat("dd-MM-yyyy HH:mm:ss");
+
+        ExtentReports extentReports = new ExtentReports();
+        extentReports.attachReporter(spark);
+        int archives = 0;
+        for (Path partition : partitions) {
+            Path archive = partition.resolve("extent.json");
+            if (Files.exists(archive)) {
+                extentReports.createDomainFromJsonArchive(archive.toFile());
+                archives++;
+            } else {
+                logger.warn("No Extent archive in {}", partition);
+            }
+        }
+        if (archives > 0) {
+            extentReports.flush();
+            logger.info("Merged Extent report of {} partition(s) written to {}", archives, outputDir.resolve("extent-report.html"));
+        }
+    }
+
+    private void mergeRecordings(List<Path> partitions) throws IOException {
+        for (String dir : recordingDirs()) {
+            for (Path partition : partitions) {
+                copyArtifacts(partition.resolve(dir), outputDir.resolve(dir));
+            }
+        }
+    }
+
+    /**
+     * The screenshot, trace and video directories relative to a report directory. A trace or video
+     * directory set to an absolute path outside it is shared by all partitions and not copied.
+     */
+    private List<String> recordingDirs() {
+        Path reportDir = Paths.get(config.getReportDir()).toAbsolutePath();
+        List<String> dirs = new ArrayList<>();
+        dirs.add("artifacts");
+        for (String dir : List.of(config.getTraceDir(), config.getVideoDir())) {
+            Path path = Paths.get(dir).toAbsolutePath();
+            if (path.startsWith(reportDir)) {
+                dirs.add(reportDir.relativize(path).toString());
+            }
+        }
+        return dirs;
+    }
+
+    private static void copyArtifacts(Path source, Path target) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return;
+        }
+        // Scenario directories carry the scenario id, so partitions never collide
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Path copy = target.resolve(source.relativize(file).toString());
+                if (!Files.exists(copy)) {
+                    Files.createDirectories(copy.getParent());
+                    Files.copy(file, copy);
+                }
+            }
+        }
+    }
+
+    private void mergeEvents(List<Path> partitions) throws IOException {
+        List<Path> eventFiles = new ArrayList<>();
+        for (Path partition : partitions) {
+            try (Stream<Path> files = Files.list(partition)) {
+                files.filter(file -> file.getFileName().toString().endsWith(".ndjson"))
+                        .sorted()
+                        .forEach(eventFiles::add);
+            }
+        }
+        if (!eventFiles.isEmpty()) {
+            // Links point at the recordings copied into the output rather than into each partition
+            new NdjsonReportBuilder(outputDir.resolve("ndjson-report"), 200, outputDir).build(eventFiles);
+        }
+    }
+
+    private void mergeTimings(List<Path> partitions) throws IOException {
+        Path timingsFile = Paths.get(config.getShardTimingsFile());
+        ScenarioTimings timings = ScenarioTimings.load(timingsFile);
+        boolean updated = false;
+        for (Path partition : partitions) {
+            ScenarioTimings partitionTimings = ScenarioTimings.load(partition.resolve("scenario-timings.json"));
+            if (!partitionTimings.isEmpty()) {
+                timings.recordAll(partitionTimings);
+                updated = true;
+            }
+        }
+        if (updated) {
+            timings.save(timingsFile);
+            logger.info("Scenario timings merged into {}", timingsFile);
+        }
+    }
+
+    private void mergeReruns(List<Path> partitions) throws IOException {
+        Path rerunFile = Paths.get(config.getRetryRerunFile());
+        Set<String> scenarios = new LinkedHashSet<>();
+        for (Path partition : partitions) {
+            Path partitionRerun = partition.resolve(rerunFile.getFileName());
+            if (Files.exists(partitionRerun)) {
+                for (String entry : Files.readString(partitionRerun, StandardCharsets.UTF_8).trim().split("\\s+")) {
+                    if (!entry.isEmpty()) {
+                        scenarios.add(entry);
+                    }
+                }
+            }
+        }
+        Files.writeString(rerunFile, String.join("\n", scenarios) + (scenarios.isEmpty() ? "" : "\n"), StandardCharsets.UTF_8);
+        if (!scenarios.isEmpty()) {
+            logger.info("{} feature(s) with failed scenarios written to {}", scenarios.size(), rerunFile);
+        }
+    }
+}
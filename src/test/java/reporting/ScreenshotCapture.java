@@ -0,0 +1,129 @@
+package reporting;
+
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.ScreenshotType;
+import config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Captures screenshots with the configured encoding and clipping and stores them in the
+ * {@link ArtifactStore}.
+ * <ul>
+ *     <li>{@code screenshot.format=png|jpeg} with {@code screenshot.quality} for JPEG</li>
+ *     <li>{@code screenshot.clip=fullPage|viewport|element}; {@code element} captures only
+ *     {@code screenshot.selector} and falls back to the viewport when it is not on the page.
+ *     Left empty, {@code screenshot.fullPage} decides between full page and viewport.</li>
+ *     <li>{@code screenshot.dedup=true} stores identical frames once and points later captures at
+ *     the stored file.</li>
+ * </ul>
+ * Capture time, stored bytes and bytes saved by deduplication are counted for the whole run and
+ * logged at shutdown.
+ */
+public final class ScreenshotCapture {
+    private static final Logger logger = LogManager.getLogger(ScreenshotCapture.class);
+    private static final Map<String, String> storedFrames = new ConcurrentHashMap<>();
+    private static final AtomicLong captures = new AtomicLong();
+    private static final AtomicLong captureNanos = new AtomicLong();
+    private static final AtomicLong bytesStored = new AtomicLong();
+    private static final AtomicLong bytesSaved = new AtomicLong();
+    private static final AtomicLong duplicates = new AtomicLong();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ScreenshotCapture::logSummary, "screenshot-summary"));
+    }
+
+    private final boolean jpeg;
+    private final int quality;
+    private final String clip;
+    private final String selector;
+    private final boolean dedup;
+
+    public ScreenshotCapture(ConfigReader config) {
+        this.jpeg = "jpeg".equalsIgnoreCase(config.getScreenshotFormat()) || "jpg".equalsIgnoreCase(config.getScreenshotFormat());
+        this.quality = config.getScreenshotQuality();
+        String configuredClip = config.getScreenshotClip();
+        this.clip = configuredClip != null ? configuredClip : (config.isScreenshotFullPage() ? "fullPage" : "viewport");
+        this.selector = config.getScreenshotSelector();
+        this.dedup = config.isScreenshotDedup();
+    }
+
+    /**
+     * Captures the page and returns the stored file's path relative to the report directory.
+     */
+    public String capture(Page page, String scenarioDir, String baseName) {
+        long start = System.nanoTime();
+        byte[] screenshot = takeScreenshot(page);
+        long elapsed = System.nanoTime() - start;
+        captures.incrementAndGet();
+        captureNanos.addAndGet(elapsed);
+
+        String fileName = baseName + (jpeg ? ".jpg" : ".png");
+        if (!dedup) {
+            bytesStored.addAndGet(screenshot.length);
+            logger.debug("Screenshot {} captured in {} ms ({} bytes)", fileName, elapsed / 1_000_000, screenshot.length);
+            return ArtifactStore.getInstance().write(scenarioDir, fileName, screenshot);
+        }
+
+        String hash = sha256(screenshot);
+        String existing = storedFrames.get(hash);
+        if (existing != null) {
+            duplicates.incrementAndGet();
+            bytesSaved.addAndGet(screenshot.length);
+            logger.debug("Screenshot {} captured in {} ms, identical to {}", fileName, elapsed / 1_000_000, existing);
+            return existing;
+        }
+        String stored = ArtifactStore.getInstance().write(scenarioDir, fileName, screenshot);
+        String raced = storedFrames.putIfAbsent(hash, stored);
+        bytesStored.addAndGet(screenshot.length);
+        logger.debug("Screenshot {} captured in {} ms ({} bytes)", fileName, elapsed / 1_000_000, screenshot.length);
+        return raced != null ? raced : stored;
+    }
+
+    private byte[] takeScreenshot(Page page) {
+        if ("element".equalsIgnoreCase(clip) && selector != null) {
+            Locator element = page.locator(selector).first();
+            if (element.count() > 0) {
+                Locator.ScreenshotOptions options = new Locator.ScreenshotOptions().setTimeout(30000);
+                if (jpeg) {
+                    options.setType(ScreenshotType.JPEG).setQuality(quality);
+                }
+                return element.screenshot(options);
+            }
+            logger.debug("Screenshot element '{}' not found, capturing the viewport", selector);
+        }
+
+        Page.ScreenshotOptions options = new Page.ScreenshotOptions()
+                .setFullPage("fullPage".equalsIgnoreCase(clip))
+                .setTimeout(30000);
+        if (jpeg) {
+            options.setType(ScreenshotType.JPEG).setQuality(quality);
+        }
+        return page.screenshot(options);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void logSummary() {
+        long count = captures.get();
+        if (count == 0) {
+            return;
+        }
+        logger.info("Screenshots: {} captured, {} duplicates, {} bytes stored, {} bytes saved by dedup, avg capture {} ms",
+                count, duplicates.get(), bytesStored.get(), bytesSaved.get(), captureNanos.get() / count / 1_000_000);
+    }
+}
@@ -0,0 +1,272 @@
+package runners;
+
+import base.PlaywrightFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import config.ConfigReader;
+import io.cucumber.core.cli.Main;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import plugins.LoadMetricsPlugin;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays the scenarios tagged {@code load.tags} in {@code load.features} as concurrent virtual users
+ * through the regular step glue and hooks.
+ * <p>
+ * Every virtual user is a thread that runs the scenarios in a loop until {@code load.durationSeconds}
+ * have passed. Users start evenly spread over {@code load.rampUpSeconds}, so the timeline in the summary
+ * shows where throughput stops growing with the user count. Like a {@code SuiteLauncher} worker, each
+ * user owns its Playwright instance and browser and opens a fresh context per scenario.
+ * <p>
+ * At the end the throughput (scenarios per minute), error rate and per-step latency percentiles are
+ * logged and written to {@code <report dir>/load-test-summary.json}. Every iteration is a separate
+ * Cucumber run, so {@code throughputPerMinute} includes Cucumber's start-up (glue scan, plugin setup)
+ * each time; that start-up is measured as the iteration's time outside its scenarios and reported as
+ * {@code startupMs}, and {@code throughputPerMinuteExcludingStartup} leaves each user's share out.
+ * <p>
+ * Screenshots are limited to failures and tracing, video, web vitals and the Extent report are off
+ * unless set explicitly, and reports go to {@code reports/load} so a load test does not overwrite the
+ * functional reports.
+ * <p>
+ * Run it from the project directory with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=runners.LoadTestRunner -Dexec.classpathScope=test
+ * </pre>
+ * adding {@code -Dload.virtualUsers=8} and the like to override {@code config.properties}.
+ */
+public final class LoadTestRunner {
+    private static final Logger logger = LogManager.getLogger(LoadTestRunner.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final String SUMMARY_FILE = "load-test-summary.json";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) {
+        setDefault("report.dir", "reports/load");
+        setDefault("screenshot.mode", "onFailure");
+        setDefault("trace.mode", "off");
+        setDefault("video.enabled", "false");
+        setDefault("report.extent.enabled", "false");
+        setDefault("perf.webVitals", "false");
+        setDefault("report.cucumber.html", "false");
+        setDefault("cucumber.publish.quiet", "true");
+        System.exit(run(new ConfigReader()) ? 0 : 1);
+    }
+
+    /**
+     * Runs the load test and returns whether every iteration passed.
+     */
+    public static boolean run(ConfigReader config) {
+        int virtualUsers = Math.max(1, config.getLoadVirtualUsers());
+        long rampUpMillis = Math.max(0, config.getLoadRampUpSeconds()) * 1000L;
+        long durationMillis = Math.max(1, config.getLoadDurationSeconds()) * 1000L;
+        String[] cucumberArgs = cucumberArgs(config);
+        long thinkTime = Math.max(0, config.getLoadThinkTimeMillis());
+
+        logger.info("Load test: {} virtual user(s), ramp-up {} s, duration {} s, scenarios {} in {}",
+                virtualUsers, rampUpMillis / 1000, durationMillis / 1000, config.getLoadTags(), config.getLoadFeatures());
+        long startedAt = System.currentTimeMillis();
+        long deadline = startedAt + durationMillis;
+        long[] userStarts = new long[virtualUsers];
+        AtomicInteger aborted = new AtomicInteger();
+        AtomicLong startupMillis = new AtomicLong();
+        List<Thread> users = new ArrayList<>();
+        for (int i = 0; i < virtualUsers; i++) {
+            userStarts[i] = startedAt + rampUpMillis * i / virtualUsers;
+            long userStart = userStarts[i];
+            Thread user = new Thread(() -> runUser(cucumberArgs, userStart, deadline, thinkTime, aborted, startupMillis), "vu-" + (i + 1));
+            users.add(user);
+            user.start();
+        }
+        for (Thread user : users) {
+            try {
+                user.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for virtual users", e);
+            }
+        }
+        long finishedAt = System.currentTimeMillis();
+        if (aborted.get() > 0) {
+            logger.error("{} virtual user(s) stopped early because Cucumber could not run", aborted.get());
+        }
+
+        JsonObject summary = summarize(config, startedAt, finishedAt, userStarts, startupMillis.get());
+        writeSummary(Paths.get(config.getReportDir(), SUMMARY_FILE), summary);
+        return aborted.get() == 0 && summary.get("failed").getAsInt() == 0;
+    }
+
+    private static String[] cucumberArgs(ConfigReader config) {
+        List<String> args = new ArrayList<>();
+        for (String glue : SuiteLauncher.GLUE) {
+            args.add("--glue");
+            args.add(glue);
+        }
+        args.add("--plugin");
+        args.add("plugins.LoadMetricsPlugin");
+        // One thread, so the scenarios run on the virtual user's thread and reuse its browser
+        args.add("--threads");
+        args.add("1");
+        args.add("--tags");
+        args.add(config.getLoadTags());
+        args.addAll(config.getLoadFeatures());
+        return args.toArray(new String[0]);
+    }
+
+    private static void runUser(String[] cucumberArgs, long start, long deadline, long thinkTime, AtomicInteger aborted,
+                                AtomicLong startupMillis) {
+        ClassLoader classLoader = LoadTestRunner.class.getClassLoader();
+        try {
+            sleepUntil(start);
+            int iteration = 0;
+            while (System.currentTimeMillis() < deadline) {
+                iteration++;
+                long runStart = System.currentTimeMillis();
+                byte status = Main.run(cucumberArgs, classLoader);
+                long outsideScenarios = System.currentTimeMillis() - runStart - LoadMetricsPlugin.takeScenarioMillis();
+                startupMillis.addAndGet(Math.max(0, outsideScenarios));
+                // 1 means failed scenarios, which count as errors; anything else is a broken setup
+                if (status > 1) {
+                    aborted.incrementAndGet();
+                    logger.error("Cucumber exited with status {} on iteration {}, stopping this virtual user", status, iteration);
+                    return;
+                }
+                if (thinkTime > 0) {
+                    sleepUntil(Math.min(deadline, System.currentTimeMillis() + thinkTime));
+                }
+            }
+            logger.info("Virtual user finished after {} iteration(s)", iteration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            PlaywrightFactory.closeWorker();
+        }
+    }
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        long remaining = time - System.currentTimeMillis();
+        if (remaining > 0) {
+            Thread.sleep(remaining);
+        }
+    }
+
+    private static JsonObject summarize(ConfigReader config, long startedAt, long finishedAt, long[] userStarts,
+                                        long startupMillis) {
+        List<LoadMetricsPlugin.Completion> completions = LoadMetricsPlugin.getCompletions();
+        long failed = completions.stream().filter(LoadMetricsPlugin.Completion::isFailed).count();
+        double minutes = Math.max(1, finishedAt - startedAt) / 60000.0;
+        double throughput = completions.size() / minutes;
+        // Users run side by side, so each one loses its share of the start-up from the wall-clock time
+        double minutesExcludingStartup = Math.max(1, finishedAt - startedAt - startupMillis / userStarts.length) / 60000.0;
+        double errorRate = completions.isEmpty() ? 0 : (double) failed / completions.size();
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("virtualUsers", userStarts.length);
+        summary.addProperty("durationSeconds", (finishedAt - startedAt) / 1000);
+        summary.addProperty("scenarios", completions.size());
+        summary.addProperty("failed", failed);
+        summary.addProperty("throughputPerMinute", round(throughput));
+        summary.addProperty("startupMs", startupMillis);
+        summary.addProperty("throughputPerMinuteExcludingStartup", round(completions.size() / minutesExcludingStartup));
+        summary.addProperty("errorRate", round(errorRate));
+        logger.info("Load test finished: {} scenarios in {} s, {} per minute ({} without {} ms of Cucumber start-up), error rate {}%",
+                completions.size(), (finishedAt - startedAt) / 1000, round(throughput),
+                round(completions.size() / minutesExcludingStartup), startupMillis, round(errorRate * 100));
+
+        JsonArray steps = new JsonArray();
+        for (Map.Entry<String, long[]> entry : LoadMetricsPlugin.getStepLatencies().entrySet()) {
+            long[] sorted = entry.getValue();
+            JsonObject step = new JsonObject();
+            step.addProperty("step", entry.getKey());
+            step.addProperty("count", sorted.length);
+            step.addProperty("p50", percentile(sorted, 50));
+            step.addProperty("p95", percentile(sorted, 95));
+            step.addProperty("p99", percentile(sorted, 99));
+            step.addProperty("max", sorted[sorted.length - 1]);
+            steps.add(step);
+            logger.info("  p50 {} ms, p95 {} ms, p99 {} ms ({}x) {}", percentile(sorted, 50), percentile(sorted, 95),
+                    percentile(sorted, 99), sorted.length, entry.getKey());
+        }
+        summary.add("steps", steps);
+        summary.add("timeline", timeline(completions, startedAt, finishedAt, userStarts,
+                Math.max(1, config.getLoadIntervalSeconds()) * 1000L));
+        return summary;
+    }
+
+    /**
+     * Scenario throughput and p95 duration per interval next to the number of started users. Throughput
+     * flattening or p95 climbing while users are still being added marks the saturation point.
+     */
+    private static JsonArray timeline(List<LoadMetricsPlugin.Completion> completions, long startedAt, long finishedAt,
+                                      long[] userStarts, long intervalMillis) {
+        JsonArray timeline = new JsonArray();
+        for (long from = startedAt; from < finishedAt; from += intervalMillis) {
+            long to = Math.min(finishedAt, from + intervalMillis);
+            List<Long> durations = new ArrayList<>();
+            long failed = 0;
+            for (LoadMetricsPlugin.Completion completion : completions) {
+                if (completion.getFinishedAt() >= from && completion.getFinishedAt() < to) {
+                    durations.add(completion.getDurationMillis());
+                    failed += completion.isFailed() ? 1 : 0;
+                }
+            }
+            long end = to;
+            long activeUsers = Arrays.stream(userStarts).filter(userStart -> userStart < end).count();
+            long[] sorted = durations.stream().mapToLong(Long::longValue).sorted().toArray();
+
+            JsonObject interval = new JsonObject();
+            interval.addProperty("startSecond", (from - startedAt) / 1000);
+            interval.addProperty("virtualUsers", activeUsers);
+            interval.addProperty("scenarios", sorted.length);
+            interval.addProperty("failed", failed);
+            interval.addProperty("throughputPerMinute", round(sorted.length * 60000.0 / Math.max(1, to - from)));
+            interval.addProperty("p95ScenarioMs", sorted.length == 0 ? 0 : percentile(sorted, 95));
+            timeline.add(interval);
+        }
+        return timeline;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        // Nearest rank
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null && System.getenv(key.toUpperCase().replace(".", "_")) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void writeSummary(Path file, JsonObject summary) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                gson.toJson(summary, writer);
+            }
+            logger.info("Load test summary written to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to write load test summary {}: {}", file, e.getMessage());
+        }
+    }
+}
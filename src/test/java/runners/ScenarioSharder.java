@@ -0,0 +1,177 @@
+package runners;
+
+import config.ConfigReader;
+import io.cucumber.gherkin.GherkinParser;
+import io.cucumber.messages.types.Envelope;
+import io.cucumber.messages.types.Examples;
+import io.cucumber.messages.types.Feature;
+import io.cucumber.messages.types.FeatureChild;
+import io.cucumber.messages.types.Pickle;
+import io.cucumber.messages.types.PickleTag;
+import io.cucumber.messages.types.RuleChild;
+import io.cucumber.messages.types.Scenario;
+import io.cucumber.messages.types.TableRow;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import plugins.ScenarioTimings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Splits the scenarios selected by the tag filter into {@code shard.total} shards of similar
+ * duration and returns the {@code path:line} references of one shard.
+ * <p>
+ * Durations come from the timings file written by {@code ScenarioTimingPlugin}; scenarios without
+ * history are estimated from their step count. Shards are filled with longest-processing-time
+ * bin packing: scenarios sorted by descending duration, each placed on the currently lightest shard.
+ * The result only depends on the feature files and the timings file, so every machine computes
+ * the same split.
+ */
+final class ScenarioSharder {
+    private static final Logger logger = LogManager.getLogger(ScenarioSharder.class);
+
+    private final ConfigReader config;
+
+    ScenarioSharder(ConfigReader config) {
+        this.config = config;
+    }
+
+    List<String> select(String featuresDir, int shardIndex, int shardTotal) {
+        if (shardTotal < 1 || shardIndex < 0 || shardIndex >= shardTotal) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardTotal
+                    + ", expected 0 <= shard.index < shard.total");
+        }
+
+        List<ScenarioRef> scenarios = discover(Paths.get(featuresDir));
+        ScenarioTimings timings = ScenarioTimings.load(Paths.get(config.getShardTimingsFile()));
+        Double recordedMillisPerStep = timings.millisPerStep();
+        double millisPerStep = recordedMillisPerStep != null ? recordedMillisPerStep : config.getShardDefaultStepMillis();
+        for (ScenarioRef scenario : scenarios) {
+            Long recorded = timings.durationMillis(ScenarioTimings.key(scenario.featurePath, scenario.line));
+            scenario.estimatedMillis = recorded != null ? recorded : Math.round(scenario.steps * millisPerStep);
+            scenario.estimated = recorded == null;
+        }
+
+        scenarios.sort(Comparator.comparingLong((ScenarioRef scenario) -> scenario.estimatedMillis).reversed()
+                .thenComparing(ScenarioRef::reference));
+        long[] shardMillis = new long[shardTotal];
+        List<List<ScenarioRef>> shards = new ArrayList<>();
+        for (int i = 0; i < shardTotal; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (ScenarioRef scenario : scenarios) {
+            int lightest = 0;
+            for (int i = 1; i < shardTotal; i++) {
+                if (shardMillis[i] < shardMillis[lightest]) {
+                    lightest = i;
+                }
+            }
+            shards.get(lightest).add(scenario);
+            shardMillis[lightest] += scenario.estimatedMillis;
+        }
+
+        for (int i = 0; i < shardTotal; i++) {
+            logger.info("Shard {}/{}: {} scenarios, estimated {} ms", i, shardTotal, shards.get(i).size(), shardMillis[i]);
+        }
+        List<ScenarioRef> selected = shards.get(shardIndex);
+        long estimatedOnly = selected.stream().filter(scenario -> scenario.estimated).count();
+        if (estimatedOnly > 0) {
+            logger.info("Shard {} includes {} scenarios without recorded timings, estimated at {} ms per step",
+                    shardIndex, estimatedOnly, Math.round(millisPerStep));
+        }
+        return selected.stream()
+                .sorted(Comparator.comparing(ScenarioRef::reference))
+                .map(ScenarioRef::reference)
+                .collect(Collectors.toList());
+    }
+
+    private List<ScenarioRef> discover(Path featuresDir) {
+        String tagFilter = config.getTagFilter();
+        Expression tagExpression = tagFilter == null ? null : TagExpressionParser.parse(tagFilter);
+        GherkinParser parser = GherkinParser.builder().includeSource(false).build();
+        List<ScenarioRef> scenarios = new ArrayList<>();
+
+        try (Stream<Path> files = Files.walk(featuresDir)) {
+            for (Path featureFile : files.filter(path -> path.toString().endsWith(".feature")).sorted().collect(Collectors.toList())) {
+                List<Envelope> envelopes = parser.parse(featureFile).collect(Collectors.toList());
+                Map<String, Integer> lines = new HashMap<>();
+                envelopes.forEach(envelope -> envelope.getGherkinDocument()
+                        .flatMap(document -> document.getFeature())
+                        .ifPresent(feature -> collectLines(feature, lines)));
+
+                for (Envelope envelope : envelopes) {
+                    if (envelope.getParseError().isPresent()) {
+                        throw new IllegalStateException("Failed to parse " + featureFile + ": "
+                                + envelope.getParseError().get().getMessage());
+                    }
+                    if (envelope.getPickle().isEmpty()) {
+                        continue;
+                    }
+                    Pickle pickle = envelope.getPickle().get();
+                    List<String> tags = pickle.getTags().stream().map(PickleTag::getName).collect(Collectors.toList());
+                    if (tagExpression != null && !tagExpression.evaluate(tags)) {
+                        continue;
+                    }
+                    List<String> astNodeIds = pickle.getAstNodeIds();
+                    Integer line = lines.get(astNodeIds.get(astNodeIds.size() - 1));
+                    scenarios.add(new ScenarioRef(featureFile.toString().replace('\\', '/'),
+                            line == null ? 0 : line, pickle.getSteps().size()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read feature files in " + featuresDir, e);
+        }
+        return scenarios;
+    }
+
+    private static void collectLines(Feature feature, Map<String, Integer> lines) {
+        for (FeatureChild child : feature.getChildren()) {
+            child.getScenario().ifPresent(scenario -> collectLines(scenario, lines));
+            child.getRule().ifPresent(rule -> {
+                for (RuleChild ruleChild : rule.getChildren()) {
+                    ruleChild.getScenario().ifPresent(scenario -> collectLines(scenario, lines));
+                }
+            });
+        }
+    }
+
+    private static void collectLines(Scenario scenario, Map<String, Integer> lines) {
+        lines.put(scenario.getId(), scenario.getLocation().getLine().intValue());
+        for (Examples examples : scenario.getExamples()) {
+            for (TableRow row : examples.getTableBody()) {
+                lines.put(row.getId(), row.getLocation().getLine().intValue());
+            }
+        }
+    }
+
+    private static final class ScenarioRef {
+        private final String featurePath;
+        private final int line;
+        private final int steps;
+        private long estimatedMillis;
+        private boolean estimated;
+
+        private ScenarioRef(String featurePath, int line, int steps) {
+            this.featurePath = featurePath;
+            this.line = line;
+            this.steps = steps;
+        }
+
+        private String reference() {
+            return featurePath + ":" + line;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package runners;
+
+import config.ConfigReader;
+import io.cucumber.core.cli.Main;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs the feature files through Cucumber's own runtime so scenarios can execute on
+ * {@code parallel.threads} worker threads. Each worker thread owns its Playwright instance
+ * (see {@code PlaywrightFactory}), since Playwright Java must not be shared across threads.
+ * With {@code shard.total > 1} only the scenarios of shard {@code shard.index} are run.
+ * <p>
+ * Failed scenarios are re-run in the same JVM up to {@code retry.failed.count} times, reusing the
+ * already launched browsers. The scenarios still failing after the last attempt are written to
+ * {@code retry.rerun.file} so a later job can run just those.
+ * <p>
+ * Sharded runs report to their own directory (see {@code ConfigReader#getReportDir()});
+ * {@code reporting.ReportMerger} combines them afterwards.
+ */
+public final class SuiteLauncher {
+    private static final Logger logger = LogManager.getLogger(SuiteLauncher.class);
+    static final String FEATURES = "src/test/resources/features";
+    static final String[] GLUE = {"steps", "hooks"};
+    private static final Path ATTEMPT_DIR = Paths.get("target", "rerun");
+    private static volatile int attempt = 1;
+
+    private SuiteLauncher() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(new ConfigReader()));
+    }
+
+    /**
+     * The 1-based attempt currently running: 1 for the initial run, 2 for the first retry and so on.
+     */
+    public static int getAttempt() {
+        return attempt;
+    }
+
+    public static byte run(ConfigReader config) {
+        if (config.isReportPartitioned()) {
+            logger.info("Writing reports to {}", config.getReportDir());
+            // Partition timings hold only this run; ReportMerger folds them into shard.timings.file
+            deleteIfExists(Paths.get(config.getTimingsOutputFile()));
+        }
+        List<String> features = List.of(FEATURES);
+        int shardTotal = config.getShardTotal();
+        if (shardTotal > 1) {
+            int shardIndex = config.getShardIndex();
+            features = new ScenarioSharder(config).select(FEATURES, shardIndex, shardTotal);
+            if (features.isEmpty()) {
+                logger.info("Shard {} of {} has no scenarios to run", shardIndex, shardTotal);
+                return 0;
+            }
+        }
+
+        int maxRetries = Math.max(0, config.getRetryFailedCount());
+        Set<String> initialFailures = Set.of();
+        Set<String> failures;
+        Path attemptRerun;
+        byte exitStatus;
+        int currentAttempt = 1;
+        while (true) {
+            attempt = currentAttempt;
+            attemptRerun = ATTEMPT_DIR.resolve("rerun-attempt-" + currentAttempt + ".txt");
+            exitStatus = runCucumber(config, features, attemptRerun, currentAttempt);
+            failures = readRerun(attemptRerun);
+            if (currentAttempt == 1) {
+                initialFailures = failures;
+            }
+            if (exitStatus == 0 || failures.isEmpty() || currentAttempt > maxRetries) {
+                break;
+            }
+            logger.info("Retrying {} failed scenario(s), retry {} of {}", failures.size(), currentAttempt, maxRetries);
+            features = List.of("@" + attemptRerun);
+            currentAttempt++;
+        }
+
+        writeFinalRerun(attemptRerun, Paths.get(config.getRetryRerunFile()));
+        Set<String> passedOnRetry = new LinkedHashSet<>(initialFailures);
+        passedOnRetry.removeAll(failures);
+        if (!passedOnRetry.isEmpty()) {
+            logger.warn("{} scenario(s) passed only on retry: {}", passedOnRetry.size(), passedOnRetry);
+        }
+        if (exitStatus != 0) {
+            logger.error("{} scenario(s) still failing after {} attempt(s): {}", failures.size(), currentAttempt, failures);
+        }
+        return exitStatus;
+    }
+
+    private static byte runCucumber(ConfigReader config, List<String> features, Path rerunFile, int currentAttempt) {
+        int threads = Math.max(1, config.getParallelThreads());
+        List<String> args = new ArrayList<>();
+        for (String glue : GLUE) {
+            args.add("--glue");
+            args.add(glue);
+        }
+        args.add("--plugin");
+        args.add("pretty");
+        if (config.isCucumberHtmlReportEnabled()) {
+            args.add("--plugin");
+            args.add("html:" + attemptFile(config.getReportDir() + "/cucumber-report.html", currentAttempt));
+        }
+        String ndjsonFile = config.getNdjsonEventsFile();
+        if (ndjsonFile != null) {
+            args.add("--plugin");
+            args.add("plugins.NdjsonEventSink:" + attemptFile(ndjsonFile, currentAttempt));
+        }
+        args.add("--plugin");
+        args.add("rerun:" + rerunFile);
+        args.add("--plugin");
+        args.add("plugins.ScenarioTimingPlugin");
+        args.add("--plugin");
+        args.add("plugins.StepTimingPlugin");
+        args.add("--plugin");
+        args.add("plugins.ProtocolStatsPlugin");
+        args.add("--threads");
+        args.add(String.valueOf(threads));
+        String tagFilter = config.getTagFilter();
+        if (tagFilter != null) {
+            args.add("--tags");
+            args.add(tagFilter);
+        }
+        args.addAll(features);
+
+        logger.info("Running features with {} worker thread(s), attempt {}", threads, currentAttempt);
+        return Main.run(args.toArray(new String[0]), Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Retries write next to the initial attempt's file: {@code report.html} becomes {@code report-retry-1.html}.
+     */
+    private static String attemptFile(String file, int currentAttempt) {
+        if (currentAttempt == 1) {
+            return file;
+        }
+        int extension = file.lastIndexOf('.');
+        String suffix = "-retry-" + (currentAttempt - 1);
+        return extension > file.lastIndexOf('/') ? file.substring(0, extension) + suffix + file.substring(extension) : file + suffix;
+    }
+
+    /**
+     * Reads a rerun file ({@code path:line:line} per feature) into one {@code path:line} entry per scenario.
+     */
+    private static Set<String> readRerun(Path rerunFile) {
+        Set<String> scenarios = new LinkedHashSet<>();
+        if (!Files.exists(rerunFile)) {
+            return scenarios;
+        }
+        try {
+            String content = Files.readString(rerunFile, StandardCharsets.UTF_8);
+            for (String feature : content.trim().split("\\s+")) {
+                // Line numbers are the trailing numeric segments; the path itself may contain colons
+                String[] parts = feature.split(":");
+                int firstLine = parts.length;
+                while (firstLine > 1 && parts[firstLine - 1].matches("\\d+")) {
+                    firstLine--;
+                }
+                String path = String.join(":", Arrays.copyOfRange(parts, 0, firstLine));
+                for (int i = firstLine; i < parts.length; i++) {
+                    scenarios.add(path + ":" + parts[i]);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read rerun file {}: {}", rerunFile, e.getMessage());
+        }
+        return scenarios;
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void writeFinalRerun(Path attemptRerun, Path rerunFile) {
+        try {
+            if (rerunFile.getParent() != null) {
+                Files.createDirectories(rerunFile.getParent());
+            }
+            if (Files.exists(attemptRerun)) {
+                Files.copy(attemptRerun, rerunFile, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.writeString(rerunFile, "", StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write rerun file {}: {}", rerunFile, e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,15 @@
 package runners;
 
-import io.cucumber.junit.Cucumber;
-import io.cucumber.junit.CucumberOptions;
-import org.junit.runner.RunWith;
+import config.ConfigReader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
 
-@RunWith(Cucumber.class)
-@CucumberOptions(
-        features = "src/test/resources/features",
-        glue = {"steps", "hooks"},
-        plugin = {
-                "pretty",
-                "html:reports/cucumber-report.html"
-        }
-)
 public class TestRunner {
-}
 
+    @Test
+    public void runFeatures() {
+        byte exitStatus = SuiteLauncher.run(new ConfigReader());
+        assertEquals("Cucumber run reported failures, see reports/ for details", 0, exitStatus);
+    }
+}
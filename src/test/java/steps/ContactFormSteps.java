@@ -250,8 +250,9 @@ public class ContactFormSteps {
         List<String> missingFields = new java.util.ArrayList<>();
 
         try {
+            Map<String, Boolean> visibility = contactPage.getFieldVisibility(fieldNames);
             for (String fieldName : fieldNames) {
-                boolean isVisible = contactPage.isFieldVisible(fieldName);
+                boolean isVisible = visibility.get(fieldName);
                 if (isVisible) {
                     Hooks.getExtentTest().log(Status.PASS, "✓ " + fieldName + " is visible");
                 } else {
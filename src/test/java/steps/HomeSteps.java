@@ -12,9 +12,14 @@ import pages.ContactPage;
 import pages.HeaderComponent;
 import pages.HomePage;
 
+import java.util.regex.Pattern;
+
 import static org.junit.Assert.*;
 
 public class HomeSteps {
+    private static final Pattern CONTACT_URL = Pattern.compile("/contact");
+    private static final String SUCCESS_TOAST = "#toast-container [role='alert']";
+
     private final Page page;
     private final ConfigReader config;
     private final HomePage homePage;
@@ -95,10 +100,17 @@ public class HomeSteps {
     @Then("success message should be displayed")
     public void successMessageShouldBeDisplayed() {
         Hooks.getExtentTest().log(Status.INFO, "Verifying success message is displayed");
-        page.waitForTimeout(1000); // Brief wait for message to appear
+        PlaywrightAssertions.assertThat(page.locator(SUCCESS_TOAST)).isVisible();
         Hooks.getExtentTest().log(Status.PASS, "Success message verified");
     }
 
+    @Then("success message should no longer be displayed")
+    public void successMessageShouldNoLongerBeDisplayed() {
+        Hooks.getExtentTest().log(Status.INFO, "Verifying success message is dismissed");
+        PlaywrightAssertions.assertThat(page.locator(SUCCESS_TOAST)).isHidden();
+        Hooks.getExtentTest().log(Status.PASS, "Success message dismissed");
+    }
+
     @When("user sorts products by {string}")
     public void userSortsProductsBy(String sortOption) {
         Hooks.getExtentTest().log(Status.INFO, "Sorting products by: " + sortOption);
@@ -207,12 +219,10 @@ public class HomeSteps {
                 new Page.GetByTextOptions().setExact(true));
 
         PlaywrightAssertions.assertThat(contactLink).isVisible();
-        page.waitForResponse(
-                response -> response.url().contains("/contact") || response.status() == 200,
-                () -> {
-                    contactLink.click();
-                }
-        );
+        contactLink.click();
+        page.waitForURL(CONTACT_URL);
+        // The form is rendered client-side after the route change, wait for it rather than for idle network
+        PlaywrightAssertions.assertThat(page.getByLabel("Email")).isVisible();
         Hooks.getExtentTest().log(Status.PASS, "Navigated to contact page");
     }
 
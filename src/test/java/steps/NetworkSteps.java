@@ -0,0 +1,27 @@
+package steps;
+
+import base.EndpointTimings;
+import com.aventstack.extentreports.Status;
+import hooks.Hooks;
+import io.cucumber.java.en.Then;
+
+import static org.junit.Assert.*;
+
+public class NetworkSteps {
+    private final EndpointTimings endpointTimings;
+
+    public NetworkSteps() {
+        this.endpointTimings = Hooks.getEndpointTimings();
+    }
+
+    @Then("the {string} API p95 should be under {int} ms")
+    public void apiP95ShouldBeUnder(String endpoint, int maxMillis) {
+        Hooks.getExtentTest().log(Status.INFO, "Verifying p95 latency of " + endpoint + " is under " + maxMillis + " ms");
+        Long p95 = endpointTimings.p95Millis(endpoint);
+        assertNotNull("No requests to " + endpoint + " were made in this scenario", p95);
+        Hooks.getExtentTest().log(Status.INFO, "p95 latency of " + endpoint + ": " + p95 + " ms");
+        assertTrue("Expected p95 latency of " + endpoint + " under " + maxMillis + " ms but was " + p95 + " ms",
+                p95 < maxMillis);
+        Hooks.getExtentTest().log(Status.PASS, "p95 latency of " + endpoint + " is within budget");
+    }
+}
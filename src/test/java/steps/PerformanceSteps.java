@@ -0,0 +1,51 @@
+package steps;
+
+import base.WebVitals;
+import com.aventstack.extentreports.Status;
+import hooks.Hooks;
+import io.cucumber.java.en.Then;
+
+import static org.junit.Assert.*;
+
+public class PerformanceSteps {
+
+    @Then("largest contentful paint should be under {int} ms")
+    public void largestContentfulPaintShouldBeUnder(int maxMillis) {
+        Double lcp = latestCapture().getLargestContentfulPaint();
+        assertNotNull("Largest contentful paint was not reported by this browser", lcp);
+        assertBudget("Largest contentful paint", lcp, maxMillis, " ms");
+    }
+
+    @Then("first contentful paint should be under {int} ms")
+    public void firstContentfulPaintShouldBeUnder(int maxMillis) {
+        Double fcp = latestCapture().getFirstContentfulPaint();
+        assertNotNull("First contentful paint was not reported by this browser", fcp);
+        assertBudget("First contentful paint", fcp, maxMillis, " ms");
+    }
+
+    @Then("cumulative layout shift should be under {double}")
+    public void cumulativeLayoutShiftShouldBeUnder(double maxShift) {
+        Double cls = latestCapture().getCumulativeLayoutShift();
+        assertNotNull("Cumulative layout shift was not reported by this browser", cls);
+        assertBudget("Cumulative layout shift", cls, maxShift, "");
+    }
+
+    @Then("total blocking time should be under {int} ms")
+    public void totalBlockingTimeShouldBeUnder(int maxMillis) {
+        Double tbt = latestCapture().getTotalBlockingTime();
+        assertNotNull("Total blocking time was not reported by this browser", tbt);
+        assertBudget("Total blocking time", tbt, maxMillis, " ms");
+    }
+
+    private static WebVitals.Snapshot latestCapture() {
+        WebVitals.Snapshot capture = WebVitals.latest();
+        assertNotNull("No web vitals captured in this scenario; is perf.webVitals enabled?", capture);
+        return capture;
+    }
+
+    private static void assertBudget(String metric, double actual, double budget, String unit) {
+        Hooks.getExtentTest().log(Status.INFO, metric + ": " + actual + unit + " (budget " + budget + unit + ")");
+        assertTrue(metric + " of " + actual + unit + " exceeds the budget of " + budget + unit, actual < budget);
+        Hooks.getExtentTest().log(Status.PASS, metric + " is within budget");
+    }
+}
@@ -0,0 +1,20 @@
+package steps;
+
+import base.VirtualTime;
+import com.aventstack.extentreports.Status;
+import hooks.Hooks;
+import io.cucumber.java.en.When;
+
+import static org.junit.Assert.*;
+
+public class TimeSteps {
+
+    @When("time advances by {int} seconds")
+    public void timeAdvancesBySeconds(int seconds) {
+        VirtualTime virtualTime = Hooks.getVirtualTime();
+        assertNotNull("Time can only be advanced in a scenario tagged @virtualTime", virtualTime);
+        Hooks.getExtentTest().log(Status.INFO, "Advancing virtual time by " + seconds + " s");
+        virtualTime.advance(seconds * 1000L);
+        Hooks.getExtentTest().log(Status.PASS, "Virtual time advanced by " + seconds + " s");
+    }
+}
@@ -9,6 +9,15 @@ Feature: Home Page
     Then cart icon should show "2" items
     And success message should be displayed
 
+  @cart @regression @virtualTime
+  Scenario: Success message is dismissed after a few seconds
+    Given user navigates to home page
+    When user clicks on the first product
+    And user clicks add to cart button
+    Then success message should be displayed
+    When time advances by 5 seconds
+    Then success message should no longer be displayed
+
   @pagination @regression
   Scenario: Navigate through product pages
     Given user navigates to home page
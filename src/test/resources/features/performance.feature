@@ -0,0 +1,13 @@
+Feature: Performance budgets
+
+  @perf
+  Scenario: Home page stays within its web vitals budget
+    Given user navigates to home page
+    Then largest contentful paint should be under 4000 ms
+    And cumulative layout shift should be under 0.1
+
+  @perf
+  Scenario: Product search API stays within its latency budget
+    Given user navigates to home page
+    When user filters by category "Hand Tools"
+    Then the "/products" API p95 should be under 3000 ms
@@ -0,0 +1,257 @@
+(function () {
+    'use strict';
+
+    var api = '/api';
+    var app = document.getElementById('app');
+    var state = { page: 1, sort: '', categories: [] };
+
+    function request(method, path, body) {
+        return fetch(api + path, {
+            method: method,
+            headers: body ? { 'Content-Type': 'application/json' } : {},
+            body: body ? JSON.stringify(body) : undefined
+        }).then(function (response) {
+            return response.json();
+        });
+    }
+
+    function escape(text) {
+        var div = document.createElement('div');
+        div.textContent = String(text);
+        return div.innerHTML;
+    }
+
+    function price(value) {
+        return '$' + Number(value).toFixed(2);
+    }
+
+    function showToast(message) {
+        var container = document.getElementById('toast-container');
+        container.innerHTML = '<div class="toast-message" role="alert">' + escape(message) + '</div>';
+        setTimeout(function () {
+            container.innerHTML = '';
+        }, 4000);
+    }
+
+    function refreshCartQuantity() {
+        var cartId = localStorage.getItem('cart_id');
+        var cartLink = document.querySelector('[data-test="nav-cart"]');
+        if (!cartId) {
+            cartLink.hidden = true;
+            return Promise.resolve();
+        }
+        return request('GET', '/carts/' + cartId).then(function (cart) {
+            var quantity = (cart.cart_items || []).reduce(function (sum, item) {
+                return sum + item.quantity;
+            }, 0);
+            document.querySelector('[data-test="cart-quantity"]').textContent = String(quantity);
+            cartLink.hidden = quantity === 0;
+        });
+    }
+
+    function renderHome() {
+        app.innerHTML =
+            '<aside class="filters">' +
+            '  <h4>Sort</h4>' +
+            '  <select id="sort" data-test="sort">' +
+            '    <option value="">Default</option>' +
+            '    <option value="name,asc">Name (A - Z)</option>' +
+            '    <option value="name,desc">Name (Z - A)</option>' +
+            '    <option value="price,asc">Price (Low - High)</option>' +
+            '    <option value="price,desc">Price (High - Low)</option>' +
+            '  </select>' +
+            '  <h4>Categories</h4>' +
+            '  <div id="categories"></div>' +
+            '</aside>' +
+            '<section>' +
+            '  <div class="grid" id="products"></div>' +
+            '  <ul class="pagination" id="pagination"></ul>' +
+            '</section>';
+
+        document.getElementById('sort').addEventListener('change', function (event) {
+            state.sort = event.target.value;
+            state.page = 1;
+            loadProducts();
+        });
+
+        request('GET', '/categories').then(function (categories) {
+            document.getElementById('categories').innerHTML = categories.map(function (category) {
+                return '<label><input type="checkbox" value="' + escape(category.id) + '" data-test="category-' +
+                    escape(category.id) + '"> ' + escape(category.name) + '</label>';
+            }).join('');
+            document.querySelectorAll('#categories input').forEach(function (checkbox) {
+                checkbox.addEventListener('change', function () {
+                    state.categories = Array.prototype.filter.call(
+                        document.querySelectorAll('#categories input'), function (input) {
+                            return input.checked;
+                        }).map(function (input) {
+                            return input.value;
+                        });
+                    state.page = 1;
+                    loadProducts();
+                });
+            });
+        });
+
+        loadProducts();
+    }
+
+    function loadProducts() {
+        var query = '?page=' + state.page;
+        if (state.sort) {
+            query += '&sort=' + encodeURIComponent(state.sort);
+        }
+        if (state.categories.length) {
+            query += '&by_category=' + encodeURIComponent(state.categories.join(','));
+        }
+        request('GET', '/products' + query).then(function (result) {
+            document.getElementById('products').innerHTML = result.data.map(function (product) {
+                return '<a class="card" data-test="product-' + escape(product.id) + '" href="/product/' +
+                    escape(product.id) + '">' +
+                    '<img src="/img/products/' + escape(product.product_image.file_name) + '" alt="' +
+                    escape(product.name) + '">' +
+                    '<h5 data-test="product-name">' + escape(product.name) + '</h5>' +
+                    '<span data-test="product-price">' + price(product.price) + '</span>' +
+                    '</a>';
+            }).join('');
+            renderPagination(result.current_page, result.last_page);
+        });
+    }
+
+    function renderPagination(current, last) {
+        var items = ['<li class="page-item' + (current === 1 ? ' disabled' : '') + '">' +
+            '<a class="page-link" href="#" aria-label="Previous" data-page="' + (current - 1) + '">&laquo;</a></li>'];
+        for (var page = 1; page <= last; page++) {
+            items.push('<li class="page-item' + (page === current ? ' active' : '') + '">' +
+                '<a class="page-link" href="#" aria-label="Page-' + page + '" data-page="' + page + '">' + page + '</a></li>');
+        }
+        items.push('<li class="page-item' + (current === last ? ' disabled' : '') + '">' +
+            '<a class="page-link" href="#" aria-label="Next" data-page="' + (current + 1) + '">&raquo;</a></li>');
+
+        var pagination = document.getElementById('pagination');
+        pagination.innerHTML = items.join('');
+        pagination.querySelectorAll('a').forEach(function (link) {
+            link.addEventListener('click', function (event) {
+                event.preventDefault();
+                state.page = Number(link.getAttribute('data-page'));
+                loadProducts();
+            });
+        });
+    }
+
+    function renderProduct(productId) {
+        request('GET', '/products/' + productId).then(function (product) {
+            app.innerHTML =
+                '<section>' +
+                '  <img src="/img/products/' + escape(product.product_image.file_name) + '" alt="' + escape(product.name) + '">' +
+                '  <h1 data-test="product-name">' + escape(product.name) + '</h1>' +
+                '  <p><span data-test="unit-price">' + Number(product.price).toFixed(2) + '</span></p>' +
+                '  <p data-test="product-description">' + escape(product.description) + '</p>' +
+                '  <label for="quantity">Quantity</label>' +
+                '  <input id="quantity" type="number" min="1" value="1" data-test="quantity">' +
+                '  <button type="button" id="btn-add-to-cart" data-test="add-to-cart">Add to cart</button>' +
+                '  <h3>Related products</h3>' +
+                '  <div class="grid" id="related"></div>' +
+                '</section>';
+
+            document.getElementById('btn-add-to-cart').addEventListener('click', function () {
+                addToCart(product.id, Number(document.getElementById('quantity').value) || 1);
+            });
+
+            request('GET', '/products/' + productId + '/related').then(function (related) {
+                document.getElementById('related').innerHTML = related.map(function (item) {
+                    return '<a class="card" href="/product/' + escape(item.id) + '"><h5>' + escape(item.name) + '</h5></a>';
+                }).join('');
+            });
+        });
+    }
+
+    function addToCart(productId, quantity) {
+        // Update the badge right away, like the real shop, and confirm it from the API afterwards
+        var badge = document.querySelector('[data-test="cart-quantity"]');
+        badge.textContent = String(Number(badge.textContent) + quantity);
+        document.querySelector('[data-test="nav-cart"]').hidden = false;
+
+        var cartId = localStorage.getItem('cart_id');
+        var ready = cartId ? Promise.resolve(cartId) : request('POST', '/carts').then(function (cart) {
+            localStorage.setItem('cart_id', cart.id);
+            return cart.id;
+        });
+        ready.then(function (id) {
+            return request('POST', '/carts/' + id, { product_id: productId, quantity: quantity });
+        }).then(function () {
+            showToast('Product added to shopping cart.');
+            return refreshCartQuantity();
+        });
+    }
+
+    function renderContact() {
+        app.innerHTML =
+            '<section>' +
+            '  <h3>Contact us</h3>' +
+            '  <form id="contact-form" novalidate>' +
+            '    <label for="first_name">First name</label><input id="first_name" data-test="first-name">' +
+            '    <label for="last_name">Last name</label><input id="last_name" data-test="last-name">' +
+            '    <label for="email">Email</label><input id="email" type="email" data-test="email">' +
+            '    <label for="subject">Subject</label>' +
+            '    <select id="subject" data-test="subject">' +
+            '      <option value="">Select a subject</option>' +
+            '      <option value="customer-service">Customer service</option>' +
+            '      <option value="webmaster">Webmaster</option>' +
+            '      <option value="return">Return</option>' +
+            '      <option value="payments">Payments</option>' +
+            '      <option value="warranty">Warranty</option>' +
+            '      <option value="status-of-order">Status of my order</option>' +
+            '    </select>' +
+            '    <label for="message">Message</label><textarea id="message" data-test="message"></textarea>' +
+            '    <label for="attachment">Attachment</label><input id="attachment" type="file" data-test="attachment">' +
+            '    <button type="submit" data-test="contact-submit">Send</button>' +
+            '  </form>' +
+            '  <div id="contact-result"></div>' +
+            '</section>';
+
+        document.getElementById('contact-form').addEventListener('submit', function (event) {
+            event.preventDefault();
+            var value = function (id) {
+                return document.getElementById(id).value.trim();
+            };
+            var errors = [];
+            if (!value('first_name')) errors.push('First name is required');
+            if (!value('last_name')) errors.push('Last name is required');
+            if (!value('email')) errors.push('Email is required');
+            else if (!/^[^@\s]+@[^@\s]+\.[^@\s]+$/.test(value('email'))) errors.push('Email format is invalid');
+            if (!value('subject')) errors.push('Subject is required');
+            if (!value('message')) errors.push('Message is required');
+            else if (value('message').length < 50) errors.push('Message must be minimal 50 characters');
+
+            var result = document.getElementById('contact-result');
+            if (errors.length) {
+                result.innerHTML = '<div class="alert alert-danger" role="alert">' + errors.map(escape).join('<br>') + '</div>';
+                return;
+            }
+            result.innerHTML = '';
+            request('POST', '/messages', {
+                first_name: value('first_name'),
+                last_name: value('last_name'),
+                email: value('email'),
+                subject: value('subject'),
+                message: value('message')
+            }).then(function () {
+                document.getElementById('contact-form').remove();
+                result.innerHTML = '<div class="alert alert-success" role="alert">' +
+                    'Thanks for your message! We will contact you shortly.</div>';
+            });
+        });
+    }
+
+    var path = window.location.pathname;
+    var productMatch = path.match(/^\/product\/([^/]+)/);
+    if (productMatch) {
+        renderProduct(productMatch[1]);
+    } else if (path.indexOf('/contact') === 0) {
+        renderContact();
+    } else {
+        renderHome();
+    }
+    refreshCartQuantity();
+})();
@@ -0,0 +1,27 @@
+// Evaluated by DomQuery.fieldVisibility: whether each form field is visible, in one round trip.
+// Takes [name, match] pairs. Matching follows the locators this replaces: LABEL like getByLabel
+// (label text or aria-label), TEXT like getByText (the innermost element or button containing the
+// text), both case-insensitive substrings with whitespace normalized.
+fields => {
+  // Playwright's rule: a non-empty bounding box and no visibility: hidden
+  const visible = e => {
+    const r = e.getBoundingClientRect();
+    return r.width > 0 && r.height > 0 && getComputedStyle(e).visibility !== 'hidden';
+  };
+  const norm = s => (s || '').replace(/\s+/g, ' ').trim().toLowerCase();
+  const all = Array.from(document.querySelectorAll('body *'));
+  const labels = Array.from(document.querySelectorAll('label'));
+  // getByText reads the value of button-like inputs as their text
+  const text = e => e.tagName === 'INPUT' && ['submit', 'button'].includes(e.type) ? e.value : e.textContent;
+  const byLabel = n => labels.filter(l => norm(l.textContent).includes(n)).map(l => l.control).filter(c => c)
+      .concat(all.filter(e => norm(e.getAttribute('aria-label')).includes(n)));
+  const byText = n => all.filter(e => norm(text(e)).includes(n)
+      && !Array.from(e.children).some(c => norm(text(c)).includes(n)));
+  return fields.map(([name, match]) => {
+    const n = norm(name);
+    const found = match === 'LABEL' ? byLabel(n)
+        : match === 'TEXT' ? byText(n)
+        : byLabel(n).concat(byText(n));
+    return found.some(visible);
+  });
+}
@@ -0,0 +1,14 @@
+// Evaluated by DomQuery.productCards over all product name elements: name, price text and
+// visibility of every card in one round trip.
+names => {
+  // Playwright's rule: a non-empty bounding box and no visibility: hidden
+  const visible = e => {
+    const r = e.getBoundingClientRect();
+    return r.width > 0 && r.height > 0 && getComputedStyle(e).visibility !== 'hidden';
+  };
+  return names.map(e => {
+    const card = e.closest('[data-test^="product-"]:not([data-test="product-name"])') || e.parentElement;
+    const price = card.querySelector("[data-test='product-price']");
+    return { name: e.textContent.trim(), price: price ? price.textContent : '', visible: visible(e) };
+  });
+}
@@ -0,0 +1,45 @@
+// Installed as an init script: records paint, layout shift and long task entries from the start of
+// every document so WebVitals can read them after navigation with a single evaluate call.
+(() => {
+  if (window.__webVitals) {
+    return;
+  }
+  const supported = (window.PerformanceObserver && PerformanceObserver.supportedEntryTypes) || [];
+  // Metrics the browser cannot observe stay null, so budget steps fail instead of passing on 0
+  const metrics = {
+    lcp: null,
+    cls: supported.includes('layout-shift') ? 0 : null,
+    longTasks: 0,
+    tbt: supported.includes('longtask') ? 0 : null
+  };
+  const observe = (type, onEntry) => {
+    try {
+      new PerformanceObserver(list => list.getEntries().forEach(onEntry)).observe({ type, buffered: true });
+    } catch (e) {
+      // Entry type not supported by this browser; the metric stays null
+    }
+  };
+  observe('largest-contentful-paint', entry => { metrics.lcp = entry.renderTime || entry.startTime; });
+  observe('layout-shift', entry => { if (!entry.hadRecentInput) metrics.cls += entry.value; });
+  observe('longtask', entry => {
+    metrics.longTasks++;
+    // Blocking time is the part of a long task beyond 50 ms
+    metrics.tbt += Math.max(0, entry.duration - 50);
+  });
+
+  window.__webVitals = () => {
+    const navigation = performance.getEntriesByType('navigation')[0];
+    const fcp = performance.getEntriesByName('first-contentful-paint')[0];
+    return {
+      url: location.href,
+      ttfb: navigation ? navigation.responseStart : null,
+      domContentLoaded: navigation ? navigation.domContentLoadedEventEnd : null,
+      load: navigation && navigation.loadEventEnd > 0 ? navigation.loadEventEnd : null,
+      fcp: fcp ? fcp.startTime : null,
+      lcp: metrics.lcp,
+      cls: metrics.cls,
+      tbt: metrics.tbt,
+      longTasks: metrics.longTasks
+    };
+  };
+})();